@@ -64,11 +64,41 @@ public final class Gfs {
     return new GfsCommit(gfs);
   }
 
+  @Nonnull
+  public static GfsBatchCommit batchCommit(Repository repo) {
+    return new GfsBatchCommit(repo);
+  }
+
+  @Nonnull
+  public static GfsGroupCommit groupCommit(Repository repo, String branch) {
+    return new GfsGroupCommit(repo, branch);
+  }
+
+  @Nonnull
+  public static GfsStatus status(GitFileSystem gfs) {
+    return new GfsStatus(gfs);
+  }
+
   @Nonnull
   public static GfsMerge merge(GitFileSystem gfs) {
     return new GfsMerge(gfs);
   }
 
+  @Nonnull
+  public static GfsBatchMerge batchMerge(Repository repo) {
+    return new GfsBatchMerge(repo);
+  }
+
+  @Nonnull
+  public static GfsCherryPick cherryPick(GitFileSystem gfs) {
+    return new GfsCherryPick(gfs);
+  }
+
+  @Nonnull
+  public static GfsRebase rebase(GitFileSystem gfs) {
+    return new GfsRebase(gfs);
+  }
+
   @Nonnull
   public static GfsReset reset(GitFileSystem gfs) {
     return new GfsReset(gfs);
@@ -17,8 +17,10 @@ import static com.beijunyi.parallelgit.filesystem.io.RootNode.*;
 public class GfsFileStore extends FileStore {
 
   private final RootNode root;
+  private final boolean readOnly;
 
   public GfsFileStore(@Nullable RevCommit commit, GfsObjectService objService) throws IOException {
+    readOnly = objService.isReadOnly();
     root = commit != null ? fromCommit(commit, objService) : newRoot(objService);
   }
 
@@ -36,7 +38,7 @@ public class GfsFileStore extends FileStore {
 
   @Override
   public boolean isReadOnly() {
-    return false;
+    return readOnly;
   }
 
   @Override
@@ -0,0 +1,138 @@
+package com.beijunyi.parallelgit.filesystem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.utils.io.TreeSnapshot;
+import org.eclipse.jgit.diff.SimilarityIndex;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+public class GfsObjectCache {
+
+  private static final int MAX_TREES = 16384;
+  private static final long MAX_BLOB_BYTES = 64L * 1024 * 1024;
+  private static final int MAX_BLOB_SIZE = 1024 * 1024;
+  private static final long MAX_INDEX_BYTES = 32L * 1024 * 1024;
+  private static final int MAX_UNINDEXABLE = 4096;
+
+  private static final Map<Repository, GfsObjectCache> CACHES = new WeakHashMap<>();
+
+  private final Map<ObjectId, TreeSnapshot> trees = new LinkedHashMap<ObjectId, TreeSnapshot>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ObjectId, TreeSnapshot> eldest) {
+      return size() > MAX_TREES;
+    }
+  };
+  private final Map<ObjectId, byte[]> blobs = new LinkedHashMap<>(16, 0.75f, true);
+  private long blobBytes = 0;
+  private final Map<ObjectId, IndexEntry> indexes = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<ObjectId, Boolean> unindexable = new LinkedHashMap<ObjectId, Boolean>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ObjectId, Boolean> eldest) {
+      return size() > MAX_UNINDEXABLE;
+    }
+  };
+  private long indexBytes = 0;
+
+  @Nonnull
+  public static GfsObjectCache forRepository(Repository repo) {
+    synchronized(CACHES) {
+      GfsObjectCache ret = CACHES.get(repo);
+      if(ret == null) {
+        ret = new GfsObjectCache();
+        CACHES.put(repo, ret);
+      }
+      return ret;
+    }
+  }
+
+  @Nullable
+  public TreeSnapshot getTree(AnyObjectId id) {
+    synchronized(trees) {
+      return trees.get(id);
+    }
+  }
+
+  public void putTree(TreeSnapshot tree) {
+    synchronized(trees) {
+      trees.put(tree.getId(), tree);
+    }
+  }
+
+  @Nullable
+  public byte[] getBlob(AnyObjectId id) {
+    synchronized(blobs) {
+      return blobs.get(id);
+    }
+  }
+
+  public void putBlob(ObjectId id, byte[] bytes) {
+    if(bytes.length > MAX_BLOB_SIZE)
+      return;
+    synchronized(blobs) {
+      byte[] previous = blobs.put(id.copy(), bytes);
+      if(previous != null)
+        blobBytes -= previous.length;
+      blobBytes += bytes.length;
+      while(blobBytes > MAX_BLOB_BYTES) {
+        Map.Entry<ObjectId, byte[]> eldest = blobs.entrySet().iterator().next();
+        blobBytes -= eldest.getValue().length;
+        blobs.remove(eldest.getKey());
+      }
+    }
+  }
+
+  @Nullable
+  public SimilarityIndex getSimilarityIndex(AnyObjectId id) {
+    synchronized(indexes) {
+      IndexEntry ret = indexes.get(id);
+      return ret != null ? ret.index : null;
+    }
+  }
+
+  public void putSimilarityIndex(ObjectId id, SimilarityIndex index, long blobSize) {
+    if(blobSize > MAX_INDEX_BYTES)
+      return;
+    synchronized(indexes) {
+      IndexEntry previous = indexes.put(id.copy(), new IndexEntry(index, blobSize));
+      if(previous != null)
+        indexBytes -= previous.size;
+      indexBytes += blobSize;
+      while(indexBytes > MAX_INDEX_BYTES) {
+        Map.Entry<ObjectId, IndexEntry> eldest = indexes.entrySet().iterator().next();
+        indexBytes -= eldest.getValue().size;
+        indexes.remove(eldest.getKey());
+      }
+    }
+  }
+
+  public boolean isUnindexable(AnyObjectId id) {
+    synchronized(indexes) {
+      return unindexable.containsKey(id);
+    }
+  }
+
+  public void putUnindexable(ObjectId id) {
+    synchronized(indexes) {
+      unindexable.put(id.copy(), Boolean.TRUE);
+    }
+  }
+
+  private static class IndexEntry {
+
+    private final SimilarityIndex index;
+    private final long size;
+
+    private IndexEntry(SimilarityIndex index, long size) {
+      this.index = index;
+      this.size = size;
+    }
+
+  }
+
+}
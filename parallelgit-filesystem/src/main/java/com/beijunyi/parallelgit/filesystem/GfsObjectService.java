@@ -3,10 +3,13 @@ package com.beijunyi.parallelgit.filesystem;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.ClosedFileSystemException;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.utils.BlobUtils;
 import com.beijunyi.parallelgit.utils.io.*;
+import org.eclipse.jgit.diff.SimilarityIndex;
 import org.eclipse.jgit.lib.*;
 
 import static org.eclipse.jgit.lib.Constants.*;
@@ -16,13 +19,18 @@ public class GfsObjectService implements Closeable {
   private final Repository repo;
   private final ObjectReader reader;
   private final ObjectInserter inserter;
+  private final GfsObjectCache cache;
+  private final boolean readOnly;
+  private final AtomicLong detachEpoch = new AtomicLong();
 
   private volatile boolean closed = false;
 
-  GfsObjectService(final Repository repo) {
+  GfsObjectService(final Repository repo, boolean readOnly) {
     this.repo = repo;
+    this.readOnly = readOnly;
     this.reader = repo.newObjectReader();
     this.inserter = repo.newObjectInserter();
+    this.cache = GfsObjectCache.forRepository(repo);
   }
 
   @Nonnull
@@ -30,6 +38,18 @@ public class GfsObjectService implements Closeable {
     return repo;
   }
 
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  public long getDetachEpoch() {
+    return detachEpoch.get();
+  }
+
+  public void advanceDetachEpoch() {
+    detachEpoch.incrementAndGet();
+  }
+
   @Nonnull
   public ObjectLoader open(AnyObjectId objectId) throws IOException {
     checkClosed();
@@ -62,6 +82,34 @@ public class GfsObjectService implements Closeable {
     }
   }
 
+  @Nonnull
+  public byte[] readBlobData(ObjectId id) throws IOException {
+    checkClosed();
+    byte[] ret = cache.getBlob(id);
+    if(ret == null) {
+      ret = readBlob(id).getData();
+      cache.putBlob(id, ret);
+    }
+    return ret;
+  }
+
+  @Nullable
+  public SimilarityIndex readSimilarityIndex(ObjectId id) throws IOException {
+    checkClosed();
+    SimilarityIndex ret = cache.getSimilarityIndex(id);
+    if(ret != null || cache.isUnindexable(id))
+      return ret;
+    ObjectLoader loader = open(id);
+    try {
+      ret = SimilarityIndex.create(loader);
+    } catch(SimilarityIndex.TableFullException e) {
+      cache.putUnindexable(id);
+      return null;
+    }
+    cache.putSimilarityIndex(id, ret, loader.getSize());
+    return ret;
+  }
+
   public long getBlobSize(ObjectId id) throws IOException {
     checkClosed();
     synchronized(reader) {
@@ -72,9 +120,14 @@ public class GfsObjectService implements Closeable {
   @Nonnull
   public TreeSnapshot readTree(ObjectId id) throws IOException {
     checkClosed();
-    synchronized(reader) {
-      return TreeSnapshot.load(id, reader);
+    TreeSnapshot ret = cache.getTree(id);
+    if(ret == null) {
+      synchronized(reader) {
+        ret = TreeSnapshot.load(id, reader);
+      }
+      cache.putTree(ret);
     }
+    return ret;
   }
 
   @Nonnull
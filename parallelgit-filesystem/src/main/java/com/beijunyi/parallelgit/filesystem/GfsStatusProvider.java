@@ -3,6 +3,7 @@ package com.beijunyi.parallelgit.filesystem;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.ClosedFileSystemException;
+import java.nio.file.ReadOnlyFileSystemException;
 import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -83,50 +84,60 @@ public class GfsStatusProvider implements AutoCloseable {
 
   public class Update implements Closeable {
 
+    private final boolean locked;
+
     private Update() {
-      lock.lock();
+      locked = !fileStore.isReadOnly();
+      if(locked)
+        lock.lock();
     }
 
     @Override
     public void close() {
-      lock.unlock();
+      if(locked)
+        lock.unlock();
     }
 
     @Nonnull
     public Update branch(String newBranch) {
-      checkClosed();
+      checkWritable();
       branch = RefUtils.fullBranchName(newBranch);
       return this;
     }
 
     @Nonnull
     public Update detach() {
-      checkClosed();
+      checkWritable();
       branch = null;
       return this;
     }
 
     @Nonnull
     public Update commit(RevCommit newCommit) {
-      checkClosed();
+      checkWritable();
       commit = newCommit;
       return this;
     }
 
     @Nonnull
     public Update mergeNote(MergeNote newMergeNote) {
-      checkClosed();
+      checkWritable();
       mergeNote = newMergeNote;
       return this;
     }
 
     @Nonnull
     public Update clearMergeNote() {
-      checkClosed();
+      checkWritable();
       mergeNote = null;
       return this;
     }
 
+    private void checkWritable() {
+      checkClosed();
+      if(!locked) throw new ReadOnlyFileSystemException();
+    }
+
   }
 
 }
@@ -9,6 +9,7 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.beijunyi.parallelgit.filesystem.io.GfsWatchService;
 import com.beijunyi.parallelgit.filesystem.io.RootNode;
 import com.beijunyi.parallelgit.filesystem.utils.GfsConfiguration;
 import com.beijunyi.parallelgit.utils.RefUtils;
@@ -35,7 +36,7 @@ public class GitFileSystem extends FileSystem {
 
   public GitFileSystem(GfsConfiguration cfg, String sid) throws IOException {
     this.sid = sid;
-    objService = new GfsObjectService(cfg.repository());
+    objService = new GfsObjectService(cfg.repository(), cfg.readOnly());
     RevCommit commit = cfg.commit();
     String branch = cfg.branch();
     if(branch == null && commit == null)
@@ -67,7 +68,7 @@ public class GitFileSystem extends FileSystem {
 
   @Override
   public boolean isReadOnly() {
-    return false;
+    return objService.isReadOnly();
   }
 
   @Nonnull
@@ -126,10 +127,10 @@ public class GitFileSystem extends FileSystem {
     throw new UnsupportedOperationException();
   }
 
-  @Nullable
+  @Nonnull
   @Override
-  public WatchService newWatchService() throws UnsupportedOperationException {
-    throw new UnsupportedOperationException();
+  public GfsWatchService newWatchService() {
+    return new GfsWatchService(this);
   }
 
   @Nonnull
@@ -180,6 +181,11 @@ public class GitFileSystem extends FileSystem {
     root.reset();
   }
 
+  public void reset(ObjectId rootTree) {
+    RootNode root = fileStore.getRoot();
+    root.reset(rootTree);
+  }
+
   @Override
   public boolean equals(@Nullable Object that) {
     return this == that
@@ -25,6 +25,8 @@ public class GitFileSystemProvider extends FileSystemProvider {
   public static final String GFS = "gfs";
   public static final String BRANCH = "branch";
   public static final String COMMIT = "commit";
+  public static final String READ_ONLY = "readOnly";
+  public static final String ALL_ATTRIBUTES = "*";
   public static final Collection<OpenOption> SUPPORTED_OPEN_OPTIONS = supportedOpenOption();
 
   private static final GitFileSystemProvider INSTANCE = getInstalledProvider();
@@ -93,14 +95,7 @@ public class GitFileSystemProvider extends FileSystemProvider {
   @Nonnull
   @Override
   public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException, UnsupportedOperationException {
-    Set<OpenOption> amended = new HashSet<>();
-    for(OpenOption option : options) {
-      if(!SUPPORTED_OPEN_OPTIONS.contains(option)) throw new UnsupportedOperationException(option.toString());
-      if(option == APPEND) amended.add(WRITE);
-      amended.add(option);
-    }
-    if(!amended.contains(WRITE)) amended.add(READ);
-    return GfsIO.newByteChannel(((GitPath)path).toRealPath(), amended, asList(attrs));
+    return GfsIO.newByteChannel(((GitPath)path).toRealPath(), options, asList(attrs));
   }
 
   @Nonnull
@@ -189,15 +184,19 @@ public class GitFileSystemProvider extends FileSystemProvider {
     String viewName = viewNameEnd >= 0 ? attributes.substring(0, viewNameEnd) : GfsFileAttributeView.Basic.BASIC_VIEW;
     String keys = viewNameEnd >= 0 ? attributes.substring(viewNameEnd + 1) : attributes;
     Class<? extends GfsFileAttributeView> viewType;
+    Set<String> allKeys;
     switch(viewName) {
       case GfsFileAttributeView.Basic.BASIC_VIEW:
         viewType = GfsFileAttributeView.Basic.class;
+        allKeys = GfsFileAttributeView.Basic.BASIC_KEYS;
         break;
       case GfsFileAttributeView.Posix.POSIX_VIEW:
         viewType = GfsFileAttributeView.Posix.class;
+        allKeys = GfsFileAttributeView.Posix.POSIX_KEYS;
         break;
       case GfsFileAttributeView.Git.GIT_VIEW:
         viewType = GfsFileAttributeView.Git.class;
+        allKeys = GfsFileAttributeView.Git.GIT_KEYS;
         break;
       default:
         throw new UnsupportedOperationException("View \"" + viewName + "\" is not available");
@@ -205,7 +204,7 @@ public class GitFileSystemProvider extends FileSystemProvider {
     GfsFileAttributeView view = getFileAttributeView(path, viewType, options);
     if(view == null)
       throw new NoSuchFileException(path.toString());
-    return view.readAttributes(asList(keys.split(",")));
+    return view.readAttributes(ALL_ATTRIBUTES.equals(keys) ? allKeys : asList(keys.split(",")));
   }
 
   @Override
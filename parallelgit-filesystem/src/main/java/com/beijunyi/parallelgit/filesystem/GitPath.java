@@ -1,6 +1,7 @@
 package com.beijunyi.parallelgit.filesystem;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.nio.ByteBuffer;
@@ -13,6 +14,8 @@ import java.util.NoSuchElementException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.beijunyi.parallelgit.filesystem.io.GfsWatchService;
+import com.beijunyi.parallelgit.filesystem.io.CachedNode;
 import com.beijunyi.parallelgit.filesystem.utils.GfsUriBuilder;
 
 import static org.eclipse.jgit.lib.Constants.CHARSET;
@@ -27,6 +30,7 @@ public class GitPath implements Path {
 
   private volatile int[] offsets;
   private volatile String stringValue;
+  private volatile CachedNode node;
 
   GitPath(GitFileSystem gfs, byte[] path) {
     this.gfs = gfs;
@@ -615,16 +619,18 @@ public class GitPath implements Path {
     throw new UnsupportedOperationException();
   }
 
-  @Nullable
+  @Nonnull
   @Override
-  public WatchKey register(@Nullable WatchService watcher, @Nullable WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) throws UnsupportedOperationException {
-    throw new UnsupportedOperationException();
+  public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) throws IOException {
+    if(!(watcher instanceof GfsWatchService))
+      throw new ProviderMismatchException();
+    return ((GfsWatchService) watcher).register(this, events);
   }
 
-  @Nullable
+  @Nonnull
   @Override
-  public WatchKey register(@Nullable WatchService watcher, WatchEvent.Kind<?>... events) throws UnsupportedOperationException {
-    throw new UnsupportedOperationException();
+  public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events) throws IOException {
+    return register(watcher, events, new WatchEvent.Modifier[0]);
   }
 
   @Nonnull
@@ -746,6 +752,16 @@ public class GitPath implements Path {
     return path.length == 1 && path[0] == '/';
   }
 
+  @Nullable
+  public CachedNode getCachedNode() {
+    return node;
+  }
+
+  public void setCachedNode(@Nullable CachedNode node) {
+    if(node != null && !isAbsolute()) throw new IllegalStateException(toString());
+    this.node = node;
+  }
+
   @Nonnull
   private GitPath emptyPath() {
     return new GitPath(gfs, new byte[0]);
@@ -1,43 +1,44 @@
 package com.beijunyi.parallelgit.filesystem.commands;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
+import java.util.*;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
 import com.beijunyi.parallelgit.filesystem.GitFileSystem;
 import com.beijunyi.parallelgit.filesystem.exceptions.NoHeadCommitException;
+import com.beijunyi.parallelgit.filesystem.io.DirectoryNode;
+import com.beijunyi.parallelgit.filesystem.io.GfsChangesCollector;
+import com.beijunyi.parallelgit.filesystem.io.Node;
+import com.beijunyi.parallelgit.filesystem.merge.GfsTreeMerger;
 import com.beijunyi.parallelgit.filesystem.merge.MergeConflict;
-import org.eclipse.jgit.dircache.DirCache;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.TreeChange;
 import org.eclipse.jgit.lib.AnyObjectId;
-import org.eclipse.jgit.merge.*;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.merge.MergeFormatter;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 import static com.beijunyi.parallelgit.filesystem.commands.GfsApplyStash.Result.*;
 import static com.beijunyi.parallelgit.filesystem.commands.GfsApplyStash.Status.*;
 import static com.beijunyi.parallelgit.filesystem.io.GfsDefaultCheckout.checkout;
-import static com.beijunyi.parallelgit.filesystem.io.GfsTreeIterator.iterateRoot;
 import static com.beijunyi.parallelgit.filesystem.merge.GfsMergeCheckout.handleConflicts;
-import static com.beijunyi.parallelgit.filesystem.merge.MergeConflict.readConflicts;
 import static com.beijunyi.parallelgit.utils.CommitUtils.getCommit;
+import static com.beijunyi.parallelgit.utils.DiffUtils.getChanges;
+import static com.beijunyi.parallelgit.utils.io.GitFileEntry.*;
 import static java.util.Collections.unmodifiableMap;
-import static org.eclipse.jgit.dircache.DirCache.newInCore;
 import static org.eclipse.jgit.lib.Constants.STASH;
-import static org.eclipse.jgit.merge.MergeStrategy.RECURSIVE;
 
 public class GfsApplyStash extends GfsCommand<GfsApplyStash.Result> {
 
   private static final String LAST_STASH = makeStashId(0);
 
-  private MergeStrategy strategy = RECURSIVE;
   private MergeFormatter formatter = new MergeFormatter();
-  private DirCache cache = newInCore();
 
   private RevCommit head;
   private String stashId;
   private RevCommit stash;
-  private ResolveMerger merger;
 
   public GfsApplyStash(GitFileSystem gfs) {
     super(gfs);
@@ -59,7 +60,8 @@ public class GfsApplyStash extends GfsCommand<GfsApplyStash.Result> {
   protected GfsApplyStash.Result doExecute(GfsStatusProvider.Update update) throws IOException {
     prepareHead();
     prepareStash();
-    prepareMerger();
+    if(applyChanges())
+      return success();
     return mergeStash();
   }
 
@@ -73,37 +75,73 @@ public class GfsApplyStash extends GfsCommand<GfsApplyStash.Result> {
     stash = getCommit(stashId, repo);
   }
 
-  private void prepareMerger() throws IOException {
-    merger = (ResolveMerger)strategy.newMerger(repo, true);
-    merger.setBase(stash.getParent(0));
-    merger.setCommitNames(new String[] {"BASE", "Updated upstream", "Stashed changes"});
-    merger.setWorkingTreeIterator(iterateRoot(gfs));
+  private boolean applyChanges() throws IOException {
+    RevCommit base = getCommit(stash.getParent(0), repo);
+    List<TreeChange> changes = getChanges(base.getTree(), stash.getTree(), repo);
+    GfsChangesCollector collector = new GfsChangesCollector();
+    Set<String> paths = new HashSet<>();
+    for(TreeChange change : changes)
+      paths.add(change.getPath());
+    for(TreeChange change : changes) {
+      if(hasChangedParent(change.getPath(), paths))
+        return false;
+      GitFileEntry current = getCurrentEntry(change.getPath());
+      if(current == null)
+        return false;
+      if(current.equals(change.getNewEntry()))
+        continue;
+      if(!current.equals(change.getOldEntry()))
+        return false;
+      collector.addChange(change.getPath(), change.getNewEntry());
+    }
+    collector.applyTo(gfs);
+    return true;
   }
 
-  @Nonnull
-  private GfsApplyStash.Result mergeStash() throws IOException {
-    boolean success = merger.merge(head, stash);
-    GfsApplyStash.Result ret;
-    if(success) {
-      checkoutFiles(merger);
-      ret = success();
-    } else {
-      writeConflicts(merger);
-      ret = conflicting(readConflicts(merger));
+  private static boolean hasChangedParent(String path, Set<String> paths) {
+    int end = path.lastIndexOf('/');
+    while(end > 0) {
+      path = path.substring(0, end);
+      if(paths.contains(path))
+        return true;
+      end = path.lastIndexOf('/');
     }
-    return ret;
+    return false;
   }
 
-  private void checkoutFiles(Merger merger) throws IOException {
-    AnyObjectId treeId = merger.getResultTreeId();
-    checkout(gfs, treeId);
+  @Nullable
+  private GitFileEntry getCurrentEntry(String path) throws IOException {
+    Node node = gfs.getFileStore().getRoot();
+    for(String name : path.split("/")) {
+      if(name.isEmpty())
+        continue;
+      if(!node.isDirectory())
+        return null;
+      node = ((DirectoryNode) node).getChild(name);
+      if(node == null)
+        return missingEntry();
+    }
+    if(node.isDirectory())
+      return null;
+    return newEntry(node.getObjectId(false), node.getMode());
   }
 
-  private void writeConflicts(ResolveMerger merger) throws IOException {
-    Map<String, MergeConflict> conflicts = readConflicts(merger);
-    handleConflicts(gfs, conflicts)
-      .withFormatter(formatter)
-      .checkout(cache);
+  @Nonnull
+  private GfsApplyStash.Result mergeStash() throws IOException {
+    GfsTreeMerger merger = new GfsTreeMerger(repo, new String[] {"BASE", "Updated upstream", "Stashed changes"});
+    AnyObjectId tree;
+    try(ObjectReader reader = repo.newObjectReader()) {
+      RevCommit base = getCommit(stash.getParent(0), reader);
+      tree = merger.mergeOrResolve(base.getTree(), head.getTree(), stash.getTree(), reader);
+    }
+    if(merger.hasConflicts()) {
+      handleConflicts(gfs, merger.getConflicts())
+        .withFormatter(formatter)
+        .checkout(tree);
+      return conflicting(merger.getConflicts());
+    }
+    checkout(gfs, tree);
+    return success();
   }
 
   @Nonnull
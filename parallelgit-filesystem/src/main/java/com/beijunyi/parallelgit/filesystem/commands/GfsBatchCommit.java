@@ -0,0 +1,171 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.NoBranchException;
+import com.beijunyi.parallelgit.filesystem.merge.MergeNote;
+import com.beijunyi.parallelgit.utils.BranchUtils;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.ReceiveCommand;
+
+import static com.beijunyi.parallelgit.utils.CommitUtils.*;
+import static java.util.Collections.unmodifiableList;
+
+public class GfsBatchCommit {
+
+  private final Repository repo;
+  private final List<Request> requests = new ArrayList<>();
+
+  private PersonIdent committer;
+  private boolean executed = false;
+
+  public GfsBatchCommit(Repository repo) {
+    this.repo = repo;
+  }
+
+  @Nonnull
+  public GfsBatchCommit commit(GitFileSystem gfs, @Nullable String message) {
+    return commit(gfs, message, null);
+  }
+
+  @Nonnull
+  public GfsBatchCommit commit(GitFileSystem gfs, @Nullable String message, @Nullable PersonIdent author) {
+    if(gfs.getRepository() != repo)
+      throw new IllegalArgumentException(gfs.toString());
+    requests.add(new Request(gfs, message, author));
+    return this;
+  }
+
+  @Nonnull
+  public GfsBatchCommit committer(@Nullable PersonIdent committer) {
+    this.committer = committer;
+    return this;
+  }
+
+  @Nonnull
+  public synchronized List<GfsCommit.Result> execute() throws IOException {
+    if(executed)
+      throw new IllegalStateException("Command already executed");
+    executed = true;
+    prepareCommitter();
+    List<Request> ordered = lockOrder();
+    try {
+      for(Request request : ordered)
+        request.update = request.status.prepareUpdate();
+      commitAll();
+    } finally {
+      for(Request request : ordered)
+        if(request.update != null)
+          request.update.close();
+    }
+    List<GfsCommit.Result> ret = new ArrayList<>(requests.size());
+    for(Request request : requests)
+      ret.add(request.result);
+    return unmodifiableList(ret);
+  }
+
+  private void prepareCommitter() {
+    if(committer == null) committer = new PersonIdent(repo);
+  }
+
+  @Nonnull
+  private List<Request> lockOrder() {
+    Map<String, Request> ret = new TreeMap<>();
+    for(Request request : requests) {
+      if(!request.status.isAttached())
+        throw new NoBranchException();
+      if(ret.put(request.status.branch(), request) != null)
+        throw new IllegalArgumentException("Duplicate branch: " + request.status.branch());
+    }
+    return new ArrayList<>(ret.values());
+  }
+
+  private void commitAll() throws IOException {
+    Map<String, ObjectId> commits = new LinkedHashMap<>();
+    try(ObjectInserter inserter = repo.newObjectInserter()) {
+      for(Request request : requests) {
+        request.tree = request.gfs.flush();
+        if(isSameAsParent(request)) {
+          request.gfs.updateOrigin(request.tree);
+          request.result = GfsCommit.Result.noChange();
+          continue;
+        }
+        request.commit = insertCommit(request.message(), request.tree, request.author(), committer, request.parents(), inserter);
+        commits.put(request.status.branch(), request.commit);
+      }
+      inserter.flush();
+    }
+    if(commits.isEmpty())
+      return;
+    Map<String, ReceiveCommand.Result> results = BranchUtils.tryNewCommits(commits, repo);
+    for(Request request : requests) {
+      if(request.commit == null)
+        continue;
+      if(results.get(request.status.branch()) != ReceiveCommand.Result.OK) {
+        request.result = GfsCommit.Result.rejected();
+        continue;
+      }
+      RevCommit commit = getCommit(request.commit, repo);
+      request.gfs.updateOrigin(request.tree);
+      request.update.commit(commit);
+      request.update.clearMergeNote();
+      request.result = GfsCommit.Result.success(commit);
+    }
+  }
+
+  private static boolean isSameAsParent(Request request) {
+    return request.status.isInitialized() && request.status.commit().getTree().equals(request.tree);
+  }
+
+  private class Request {
+
+    private final GitFileSystem gfs;
+    private final GfsStatusProvider status;
+    private final String message;
+    private final PersonIdent author;
+
+    private GfsStatusProvider.Update update;
+    private ObjectId tree;
+    private ObjectId commit;
+    private GfsCommit.Result result;
+
+    private Request(GitFileSystem gfs, @Nullable String message, @Nullable PersonIdent author) {
+      this.gfs = gfs;
+      this.status = gfs.getStatusProvider();
+      this.message = message;
+      this.author = author;
+    }
+
+    @Nonnull
+    private String message() {
+      if(message != null)
+        return message;
+      MergeNote note = status.mergeNote();
+      return note != null ? note.getMessage() : "";
+    }
+
+    @Nonnull
+    private PersonIdent author() {
+      return author != null ? author : committer;
+    }
+
+    @Nonnull
+    private List<AnyObjectId> parents() {
+      List<AnyObjectId> ret = new ArrayList<>();
+      if(status.isInitialized())
+        ret.add(status.commit());
+      MergeNote note = status.mergeNote();
+      if(note != null && note.getSource() != null)
+        ret.add(note.getSource());
+      return ret;
+    }
+
+  }
+
+}
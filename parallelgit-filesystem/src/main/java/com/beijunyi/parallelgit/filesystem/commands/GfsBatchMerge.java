@@ -0,0 +1,152 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.Gfs;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.ParallelTasks;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.merge.MergeStrategy;
+
+import static java.util.Collections.unmodifiableList;
+import static org.eclipse.jgit.merge.MergeStrategy.RECURSIVE;
+
+public class GfsBatchMerge {
+
+  private static final int MAX_CACHED_TREES = 1024;
+
+  private final Repository repo;
+  private final List<String> targets = new ArrayList<>();
+  private final List<String> sources = new ArrayList<>();
+  private final Map<AnyObjectId, SortedMap<String, GitFileEntry>> trees = Collections.synchronizedMap(new LinkedHashMap<AnyObjectId, SortedMap<String, GitFileEntry>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<AnyObjectId, SortedMap<String, GitFileEntry>> eldest) {
+      return size() > MAX_CACHED_TREES;
+    }
+  });
+
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private MergeStrategy strategy = RECURSIVE;
+  private boolean commit = true;
+  private PersonIdent committer;
+  private boolean executed = false;
+
+  public GfsBatchMerge(Repository repo) {
+    this.repo = repo;
+  }
+
+  @Nonnull
+  public GfsBatchMerge merge(String target, String source) {
+    targets.add(target);
+    sources.add(source);
+    return this;
+  }
+
+  @Nonnull
+  public GfsBatchMerge parallelism(int parallelism) {
+    if(parallelism < 1)
+      throw new IllegalArgumentException("parallelism: " + parallelism);
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  @Nonnull
+  public GfsBatchMerge strategy(MergeStrategy strategy) {
+    this.strategy = strategy;
+    return this;
+  }
+
+  @Nonnull
+  public GfsBatchMerge commit(boolean commit) {
+    this.commit = commit;
+    return this;
+  }
+
+  @Nonnull
+  public GfsBatchMerge committer(@Nullable PersonIdent committer) {
+    this.committer = committer;
+    return this;
+  }
+
+  @Nonnull
+  public synchronized List<GfsMerge.Result> execute() throws IOException {
+    if(executed)
+      throw new IllegalStateException("Command already executed");
+    executed = true;
+    GfsMerge.Result[] results = new GfsMerge.Result[targets.size()];
+    Queue<List<Integer>> groups = new ConcurrentLinkedQueue<>(groupByTarget());
+    int threads = Math.min(parallelism, groups.size());
+    List<MergeWorker> workers = new ArrayList<>(threads);
+    for(int i = 0; i < threads; i++)
+      workers.add(new MergeWorker(groups, results));
+    ParallelTasks.runAll(workers);
+    return unmodifiableList(Arrays.asList(results));
+  }
+
+  @Nonnull
+  private Collection<List<Integer>> groupByTarget() {
+    Map<String, List<Integer>> ret = new LinkedHashMap<>();
+    for(int i = 0; i < targets.size(); i++) {
+      List<Integer> group = ret.get(targets.get(i));
+      if(group == null) {
+        group = new ArrayList<>();
+        ret.put(targets.get(i), group);
+      }
+      group.add(i);
+    }
+    return ret.values();
+  }
+
+  private class MergeWorker implements Callable<Void> {
+
+    private final Queue<List<Integer>> groups;
+    private final GfsMerge.Result[] results;
+
+    private MergeWorker(Queue<List<Integer>> groups, GfsMerge.Result[] results) {
+      this.groups = groups;
+      this.results = results;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      try(ObjectReader reader = repo.newObjectReader()) {
+        List<Integer> group;
+        while((group = groups.poll()) != null) {
+          for(int index : group) {
+            try {
+              results[index] = merge(targets.get(index), sources.get(index), reader);
+            } catch(IOException | RuntimeException e) {
+              results[index] = GfsMerge.Result.failed(e);
+            }
+          }
+        }
+      }
+      return null;
+    }
+
+    @Nonnull
+    private GfsMerge.Result merge(String target, String source, ObjectReader reader) throws IOException {
+      try(GitFileSystem gfs = Gfs.newFileSystem(target, repo)) {
+        return Gfs.merge(gfs)
+                 .source(source)
+                 .strategy(strategy)
+                 .commit(commit)
+                 .committer(committer)
+                 .reader(reader)
+                 .treeCache(trees)
+                 .execute();
+      }
+    }
+
+  }
+
+}
@@ -36,8 +36,12 @@ public class GfsCheckout extends GfsCommand<GfsCheckout.Result> {
   @Nonnull
   @Override
   protected Result doExecute(GfsStatusProvider.Update update) throws IOException {
-    prepareFileSystem();
     prepareTarget();
+    if(force) {
+      gfs.reset(targetCommit.getTree());
+      updateHead(update);
+      return Result.success();
+    }
     GfsDefaultCheckout checkout = new GfsDefaultCheckout(gfs, false);
     checkout.checkout(targetCommit.getTree());
     if(checkout.hasConflicts())
@@ -65,11 +69,6 @@ public class GfsCheckout extends GfsCommand<GfsCheckout.Result> {
     return this;
   }
 
-  private void prepareFileSystem() {
-    if(force)
-      store.getRoot().reset();
-  }
-
   private void prepareTarget() throws IOException {
     if(target == null)
       throw new NoBranchException();
@@ -0,0 +1,232 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.GfsCheckoutConflictException;
+import com.beijunyi.parallelgit.filesystem.exceptions.NoHeadCommitException;
+import com.beijunyi.parallelgit.filesystem.merge.GfsTreeMerger;
+import com.beijunyi.parallelgit.filesystem.merge.MergeConflict;
+import com.beijunyi.parallelgit.filesystem.merge.MergeNote;
+import com.beijunyi.parallelgit.utils.CommitUtils;
+import com.beijunyi.parallelgit.utils.exceptions.NoSuchCommitException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.merge.MergeFormatter;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import static com.beijunyi.parallelgit.filesystem.commands.GfsCherryPick.Status.*;
+import static com.beijunyi.parallelgit.filesystem.io.GfsDefaultCheckout.checkout;
+import static com.beijunyi.parallelgit.filesystem.merge.GfsMergeCheckout.handleConflicts;
+import static com.beijunyi.parallelgit.utils.CommitUtils.getDefaultCommitName;
+
+public class GfsCherryPick extends GfsCommand<GfsCherryPick.Result> {
+
+  private MergeFormatter formatter = new MergeFormatter();
+
+  private String revision;
+  private AnyObjectId commitId;
+  private int mainline;
+  private RevCommit pickedCommit;
+  private RevCommit headCommit;
+  private PersonIdent committer;
+  private boolean commitResult = true;
+
+  public GfsCherryPick(GitFileSystem gfs) {
+    super(gfs);
+  }
+
+  @Nonnull
+  @Override
+  protected Result doExecute(GfsStatusProvider.Update update) throws IOException {
+    headCommit = status.commit();
+    if(headCommit == null)
+      throw new NoHeadCommitException();
+    preparePickedCommit();
+    String[] names = {"BASE", "HEAD", getDefaultCommitName(pickedCommit)};
+    AnyObjectId baseTree = prepareBaseTree();
+
+    GfsTreeMerger merger = new GfsTreeMerger(repo, names);
+    AnyObjectId treeId;
+    try(ObjectReader reader = repo.newObjectReader()) {
+      treeId = merger.mergeOrResolve(baseTree, headCommit.getTree(), pickedCommit.getTree(), reader);
+    }
+
+    try {
+      if(merger.hasConflicts()) {
+        writeConflicts(merger.getConflicts(), treeId);
+        return conflicting(update, merger.getConflicts());
+      }
+      checkout(gfs, treeId);
+    } catch(GfsCheckoutConflictException e) {
+      return Result.checkoutConflict();
+    }
+    return commitResult();
+  }
+
+  @Nonnull
+  public GfsCherryPick revision(@Nullable String revision) {
+    this.revision = revision;
+    return this;
+  }
+
+  @Nonnull
+  public GfsCherryPick commit(@Nullable AnyObjectId commitId) {
+    this.commitId = commitId;
+    return this;
+  }
+
+  @Nonnull
+  public GfsCherryPick mainline(int mainline) {
+    this.mainline = mainline;
+    return this;
+  }
+
+  @Nonnull
+  public GfsCherryPick committer(@Nullable PersonIdent committer) {
+    this.committer = committer;
+    return this;
+  }
+
+  @Nonnull
+  public GfsCherryPick commitResult(boolean commitResult) {
+    this.commitResult = commitResult;
+    return this;
+  }
+
+  private void preparePickedCommit() throws IOException {
+    if(commitId == null) {
+      if(revision == null)
+        throw new IllegalStateException("Commit to cherry-pick is not specified");
+      commitId = repo.resolve(revision);
+      if(commitId == null)
+        throw new NoSuchCommitException(revision);
+    }
+    pickedCommit = CommitUtils.getCommit(commitId, repo);
+  }
+
+  @Nullable
+  private AnyObjectId prepareBaseTree() throws IOException {
+    int parents = pickedCommit.getParentCount();
+    if(parents > 1) {
+      if(mainline < 1 || mainline > parents)
+        throw new IllegalArgumentException("Commit " + pickedCommit.getName() + " is a merge but mainline " + mainline + " is not one of its parents");
+      return CommitUtils.getCommit(pickedCommit.getParent(mainline - 1), repo).getTree();
+    }
+    if(mainline != 0)
+      throw new IllegalArgumentException("Mainline is specified but commit " + pickedCommit.getName() + " is not a merge");
+    return parents > 0 ? CommitUtils.getCommit(pickedCommit.getParent(0), repo).getTree() : null;
+  }
+
+  private void writeConflicts(Map<String, MergeConflict> conflicts, AnyObjectId tree) throws IOException {
+    handleConflicts(gfs, conflicts)
+      .withFormatter(formatter)
+      .checkout(tree);
+  }
+
+  @Nonnull
+  private Result conflicting(GfsStatusProvider.Update update, Map<String, MergeConflict> conflicts) {
+    update.mergeNote(MergeNote.cherryPickConflicting(pickedCommit.getFullMessage(), pickedCommit.getAuthorIdent()));
+    return Result.conflicting(conflicts);
+  }
+
+  @Nonnull
+  private Result commitResult() throws IOException {
+    if(!commitResult)
+      return Result.pickedNotCommitted();
+    GfsCommit.Result result = new GfsCommit(gfs)
+                                .message(pickedCommit.getFullMessage())
+                                .author(pickedCommit.getAuthorIdent())
+                                .committer(committer)
+                                .cherryPick(true)
+                                .execute();
+    if(!result.isSuccessful())
+      return Result.noChange();
+    return Result.picked(result.getCommit());
+  }
+
+  public enum Status {
+    CHECKOUT_CONFLICT,
+    NO_CHANGE,
+    PICKED,
+    PICKED_NOT_COMMITTED,
+    CONFLICTING
+  }
+
+  public static class Result implements GfsCommandResult {
+
+    private final Status status;
+    private final Map<String, MergeConflict> conflicts;
+    private final RevCommit commit;
+
+    private Result(Status status, Map<String, MergeConflict> conflicts, @Nullable RevCommit commit) {
+      this.status = status;
+      this.conflicts = conflicts;
+      this.commit = commit;
+    }
+
+    private Result(Status status, @Nullable RevCommit commit) {
+      this(status, Collections.<String, MergeConflict>emptyMap(), commit);
+    }
+
+    @Nonnull
+    public static Result checkoutConflict() {
+      return new Result(CHECKOUT_CONFLICT, null);
+    }
+
+    @Nonnull
+    public static Result noChange() {
+      return new Result(NO_CHANGE, null);
+    }
+
+    @Nonnull
+    public static Result picked(RevCommit commit) {
+      return new Result(PICKED, commit);
+    }
+
+    @Nonnull
+    public static Result pickedNotCommitted() {
+      return new Result(PICKED_NOT_COMMITTED, null);
+    }
+
+    @Nonnull
+    public static Result conflicting(Map<String, MergeConflict> conflicts) {
+      return new Result(CONFLICTING, conflicts, null);
+    }
+
+    @Override
+    public boolean isSuccessful() {
+      switch(status) {
+        case NO_CHANGE:
+        case PICKED:
+        case PICKED_NOT_COMMITTED:
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    @Nonnull
+    public Status getStatus() {
+      return status;
+    }
+
+    @Nonnull
+    public Map<String, MergeConflict> getConflicts() {
+      return conflicts;
+    }
+
+    @Nullable
+    public RevCommit getCommit() {
+      return commit;
+    }
+
+  }
+
+}
@@ -1,32 +1,41 @@
 package com.beijunyi.parallelgit.filesystem.commands;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
 import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.GfsCommitConflictException;
 import com.beijunyi.parallelgit.filesystem.exceptions.UnsuccessfulOperationException;
+import com.beijunyi.parallelgit.filesystem.merge.GfsTreeMerger;
 import com.beijunyi.parallelgit.filesystem.merge.MergeNote;
 import com.beijunyi.parallelgit.utils.BranchUtils;
 import com.beijunyi.parallelgit.utils.CommitUtils;
-import org.eclipse.jgit.lib.AnyObjectId;
-import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.PersonIdent;
+import com.beijunyi.parallelgit.utils.exceptions.RefUpdateLockFailureException;
+import com.beijunyi.parallelgit.utils.exceptions.RefUpdateRejectedException;
+import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 
+import static com.beijunyi.parallelgit.filesystem.io.GfsDefaultCheckout.checkout;
 import static java.util.Arrays.asList;
 import static java.util.Collections.*;
 
 public class GfsCommit extends GfsCommand<GfsCommit.Result> {
 
+  private static final long MAX_BACKOFF_MILLIS = 64;
+
   private PersonIdent author;
   private PersonIdent committer;
   private String message;
   private List<? extends AnyObjectId> parents;
   private boolean amend = false;
   private boolean allowEmpty = false;
+  private boolean cherryPick = false;
+  private int autoRebase = 0;
+  private boolean branchUpdated = false;
 
   public GfsCommit(GitFileSystem gfs) {
     super(gfs);
@@ -40,11 +49,15 @@ public class GfsCommit extends GfsCommand<GfsCommit.Result> {
     prepareAuthor();
     prepareParents();
     ObjectId resultTree = gfs.flush();
-    gfs.updateOrigin(resultTree);
-    if(!allowEmpty && !amend && isSameAsParent(resultTree))
+    if(!allowEmpty && !amend && isSameAsParent(resultTree)) {
+      gfs.updateOrigin(resultTree);
       return Result.noChange();
+    }
     RevCommit resultCommit = CommitUtils.createCommit(message, resultTree, author, committer, parents, repo);
+    if(canRebase())
+      resultCommit = updateBranchWithRebase(resultCommit, resultTree);
     updateStatus(update, resultCommit);
+    gfs.updateOrigin(resultCommit.getTree());
     return Result.success(resultCommit);
   }
 
@@ -78,6 +91,18 @@ public class GfsCommit extends GfsCommand<GfsCommit.Result> {
     return this;
   }
 
+  @Nonnull
+  public GfsCommit autoRebase(int retries) {
+    this.autoRebase = retries;
+    return this;
+  }
+
+  @Nonnull
+  GfsCommit cherryPick(boolean cherryPick) {
+    this.cherryPick = cherryPick;
+    return this;
+  }
+
   private void prepareMessage() {
     if(message == null) {
       MergeNote note = status.mergeNote();
@@ -91,9 +116,10 @@ public class GfsCommit extends GfsCommand<GfsCommit.Result> {
 
   private void prepareAuthor() {
     if(author == null) {
-      if(!amend)
-        author = committer;
-      else
+      if(!amend) {
+        MergeNote note = status.mergeNote();
+        author = note != null && note.getAuthor() != null ? note.getAuthor() : committer;
+      } else
         author = status.commit().getAuthorIdent();
     }
   }
@@ -115,15 +141,68 @@ public class GfsCommit extends GfsCommand<GfsCommit.Result> {
     }
   }
 
+  private boolean canRebase() {
+    return autoRebase > 0 && !amend && !cherryPick && status.isAttached() && status.isInitialized() && status.mergeNote() == null;
+  }
+
+  @Nonnull
+  private RevCommit updateBranchWithRebase(RevCommit commit, ObjectId tree) throws IOException {
+    RevCommit base = status.commit();
+    int attempt = 0;
+    while(true) {
+      try {
+        BranchUtils.newCommit(status.branch(), commit, repo);
+        break;
+      } catch(RefUpdateRejectedException | RefUpdateLockFailureException e) {
+        if(attempt >= autoRebase)
+          throw e;
+        backoff(attempt++);
+        RevCommit head = BranchUtils.getHeadCommit(status.branch(), repo);
+        if(!head.equals(commit.getParent(0))) {
+          ObjectId rebasedTree;
+          try(ObjectReader reader = repo.newObjectReader()) {
+            rebasedTree = rebaseTree(base.getTree(), head.getTree(), tree, reader, repo);
+          }
+          commit = CommitUtils.createCommit(message, rebasedTree, author, committer, singletonList(head), repo);
+        }
+      }
+    }
+    if(!commit.getTree().equals(tree))
+      checkout(gfs, tree, commit.getTree());
+    branchUpdated = true;
+    return commit;
+  }
+
+  @Nonnull
+  static ObjectId rebaseTree(AnyObjectId base, AnyObjectId head, AnyObjectId tree, ObjectReader reader, Repository repo) throws IOException {
+    String[] names = {"BASE", "HEAD", "LOCAL"};
+    GfsTreeMerger merger = new GfsTreeMerger(repo, names);
+    ObjectId ret = merger.mergeOrResolve(base, head, tree, reader);
+    if(merger.hasConflicts())
+      throw new GfsCommitConflictException(merger.getConflicts());
+    return ret;
+  }
+
+  private static void backoff(int attempt) throws InterruptedIOException {
+    try {
+      Thread.sleep(Math.min(MAX_BACKOFF_MILLIS, 1L << attempt));
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
   private boolean isSameAsParent(AnyObjectId newTree) {
     return status.isInitialized() && status.commit().getTree().equals(newTree);
   }
 
   private void updateStatus(GfsStatusProvider.Update update, RevCommit newHead) throws IOException {
-    if(status.isAttached()) {
+    if(status.isAttached() && !branchUpdated) {
       MergeNote mergeNote = status.mergeNote();
       if(!amend) {
-        if(mergeNote != null) {
+        if(cherryPick) {
+          BranchUtils.cherryPick(status.branch(), newHead, repo);
+        } else if(mergeNote != null) {
           BranchUtils.mergeCommit(status.branch(), newHead, repo);
         } else if(status.isInitialized()) {
           BranchUtils.newCommit(status.branch(), newHead, repo);
@@ -140,7 +219,8 @@ public class GfsCommit extends GfsCommand<GfsCommit.Result> {
 
   public enum Status {
     COMMITTED,
-    NO_CHANGE
+    NO_CHANGE,
+    REJECTED
   }
 
   public static class Result implements GfsCommandResult {
@@ -163,6 +243,11 @@ public class GfsCommit extends GfsCommand<GfsCommit.Result> {
       return new Result(Status.NO_CHANGE, null);
     }
 
+    @Nonnull
+    public static Result rejected() {
+      return new Result(Status.REJECTED, null);
+    }
+
     @Override
     public boolean isSuccessful() {
       return commit != null;
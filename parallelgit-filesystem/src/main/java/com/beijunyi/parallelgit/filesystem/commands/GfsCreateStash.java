@@ -2,7 +2,7 @@ package com.beijunyi.parallelgit.filesystem.commands;
 
 import java.io.IOException;
 import java.text.MessageFormat;
-import java.util.List;
+import java.util.SortedMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -11,12 +11,18 @@ import com.beijunyi.parallelgit.filesystem.GitFileSystem;
 import com.beijunyi.parallelgit.filesystem.exceptions.NoBranchException;
 import com.beijunyi.parallelgit.filesystem.exceptions.NoHeadCommitException;
 import com.beijunyi.parallelgit.filesystem.exceptions.UnsuccessfulOperationException;
+import com.beijunyi.parallelgit.filesystem.io.FileStatus;
+import com.beijunyi.parallelgit.filesystem.io.GfsTreeBuilder;
+import com.beijunyi.parallelgit.filesystem.io.RootNode;
 import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 import static com.beijunyi.parallelgit.filesystem.commands.GfsCreateStash.Result.*;
 import static com.beijunyi.parallelgit.filesystem.commands.GfsCreateStash.Status.*;
+import static com.beijunyi.parallelgit.filesystem.io.GfsStatusCollector.collect;
 import static com.beijunyi.parallelgit.utils.CommitUtils.*;
 import static com.beijunyi.parallelgit.utils.StashUtils.addToStash;
 import static java.util.Arrays.asList;
@@ -64,17 +70,15 @@ public class GfsCreateStash extends GfsCommand<GfsCreateStash.Result> {
     prepareParent();
     prepareIndexMessage();
     prepareDirectoryMessage();
-    AnyObjectId resultTree = gfs.flush();
-    GfsCreateStash.Result result;
-    if(parent != null && parent.getTree().equals(resultTree)) {
-      result = noChange();
-    } else {
-      RevCommit indexCommit = makeIndexCommit(resultTree);
-      RevCommit stashCommit = makeWorkingDirectoryCommit(indexCommit);
-      addToStash(stashCommit, repo);
-      result = success(stashCommit);
-    }
-    return result;
+    RootNode root = gfs.getFileStore().getRoot();
+    SortedMap<String, FileStatus> changes = collect(root, true);
+    if(changes.isEmpty())
+      return noChange();
+    AnyObjectId baseTree = root.getOrigin().isSubtree() ? root.getOrigin().getId() : null;
+    AnyObjectId resultTree = GfsTreeBuilder.build(baseTree, changes.values(), gfs.getObjectService());
+    RevCommit stashCommit = makeStashCommits(resultTree);
+    addToStash(stashCommit, repo);
+    return success(stashCommit);
   }
 
   private void prepareBranch() {
@@ -102,16 +106,14 @@ public class GfsCreateStash extends GfsCommand<GfsCreateStash.Result> {
   }
 
   @Nonnull
-  private RevCommit makeIndexCommit(AnyObjectId tree) throws IOException {
-    List<RevCommit> parents = singletonList(parent);
-    return createCommit(indexMessage, tree, committer, committer, parents, repo);
-  }
-
-  @Nonnull
-  private RevCommit makeWorkingDirectoryCommit(RevCommit indexCommit) throws IOException {
-    AnyObjectId tree = indexCommit.getTree();
-    List<RevCommit> parents = asList(parent, indexCommit);
-    return createCommit(workingDirectoryMessage, tree, committer, committer, parents, repo);
+  private RevCommit makeStashCommits(AnyObjectId tree) throws IOException {
+    ObjectId stashCommit;
+    try(ObjectInserter inserter = repo.newObjectInserter()) {
+      ObjectId indexCommit = insertCommit(indexMessage, tree, committer, committer, singletonList(parent), inserter);
+      stashCommit = insertCommit(workingDirectoryMessage, tree, committer, committer, asList(parent, indexCommit), inserter);
+      inserter.flush();
+    }
+    return getCommit(stashCommit, repo);
   }
 
   public enum Status {
@@ -0,0 +1,190 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.GfsCommitConflictException;
+import com.beijunyi.parallelgit.filesystem.exceptions.NoBranchException;
+import com.beijunyi.parallelgit.filesystem.exceptions.NoHeadCommitException;
+import com.beijunyi.parallelgit.utils.BranchUtils;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import static com.beijunyi.parallelgit.filesystem.io.GfsDefaultCheckout.checkout;
+import static com.beijunyi.parallelgit.utils.CommitUtils.*;
+import static com.beijunyi.parallelgit.utils.RefUtils.fullBranchName;
+import static java.util.Collections.singletonList;
+
+public class GfsGroupCommit {
+
+  private final Repository repo;
+  private final String branch;
+  private final Queue<Request> queue = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock leader = new ReentrantLock();
+
+  public GfsGroupCommit(Repository repo, String branch) {
+    this.repo = repo;
+    this.branch = fullBranchName(branch);
+  }
+
+  @Nonnull
+  public GfsCommit.Result commit(GitFileSystem gfs, String message) throws IOException {
+    return commit(gfs, message, null, null);
+  }
+
+  @Nonnull
+  public GfsCommit.Result commit(GitFileSystem gfs, String message, @Nullable PersonIdent author, @Nullable PersonIdent committer) throws IOException {
+    GfsStatusProvider status = gfs.getStatusProvider();
+    if(!status.isAttached())
+      throw new NoBranchException();
+    if(!branch.equals(fullBranchName(status.branch())))
+      throw new IllegalArgumentException(status.branch());
+    if(committer == null)
+      committer = new PersonIdent(repo);
+    Request request;
+    try(GfsStatusProvider.Update update = status.prepareUpdate()) {
+      RevCommit base = headCommit(status);
+      request = new Request(gfs, gfs.flush(), base, message, author != null ? author : committer, committer);
+    }
+    queue.add(request);
+    leader.lock();
+    try {
+      if(!request.done)
+        processQueue();
+    } finally {
+      leader.unlock();
+    }
+    return request.getResult();
+  }
+
+  @Nonnull
+  private static RevCommit headCommit(GfsStatusProvider status) {
+    try {
+      return status.commit();
+    } catch(NoHeadCommitException e) {
+      throw new IllegalArgumentException("Branch " + status.branch() + " has no commit yet, create its first commit with Gfs.commit");
+    }
+  }
+
+  private void processQueue() {
+    List<Request> batch = new ArrayList<>();
+    Request request;
+    while((request = queue.poll()) != null)
+      batch.add(request);
+    try {
+      commitBatch(batch);
+    } catch(IOException | RuntimeException e) {
+      for(Request failed : batch)
+        failed.fail(e);
+    }
+  }
+
+  private void commitBatch(List<Request> batch) throws IOException {
+    RevCommit head = BranchUtils.getHeadCommit(branch, repo);
+    ObjectId tip = head;
+    ObjectId tipTree = head.getTree();
+    List<Request> committed = new ArrayList<>();
+    try(ObjectReader reader = repo.newObjectReader(); ObjectInserter inserter = repo.newObjectInserter()) {
+      for(Request request : batch) {
+        RevCommit base = request.base;
+        if(base.getTree().equals(request.tree)) {
+          request.succeed(GfsCommit.Result.noChange());
+          continue;
+        }
+        ObjectId tree = request.tree;
+        if(!base.equals(tip)) {
+          try {
+            tree = GfsCommit.rebaseTree(base.getTree(), tipTree, tree, reader, repo);
+          } catch(GfsCommitConflictException e) {
+            request.fail(e);
+            continue;
+          }
+        }
+        tip = insertCommit(request.message, tree, request.author, request.committer, singletonList(tip), inserter);
+        tipTree = tree;
+        request.commit = tip;
+        committed.add(request);
+      }
+      inserter.flush();
+    }
+    if(committed.isEmpty())
+      return;
+    BranchUtils.newCommit(branch, tip, repo);
+    for(Request request : committed) {
+      try {
+        RevCommit commit = getCommit(request.commit, repo);
+        updateFileSystem(request.gfs, commit, request.tree);
+        request.succeed(GfsCommit.Result.success(commit));
+      } catch(IOException | RuntimeException e) {
+        request.fail(e);
+      }
+    }
+  }
+
+  private static void updateFileSystem(GitFileSystem gfs, RevCommit commit, ObjectId tree) throws IOException {
+    try(GfsStatusProvider.Update update = gfs.getStatusProvider().prepareUpdate()) {
+      if(!commit.getTree().equals(tree))
+        checkout(gfs, tree, commit.getTree());
+      gfs.updateOrigin(commit.getTree());
+      update.commit(commit);
+      update.clearMergeNote();
+    }
+  }
+
+  private static class Request {
+
+    private final GitFileSystem gfs;
+    private final ObjectId tree;
+    private final RevCommit base;
+    private final String message;
+    private final PersonIdent author;
+    private final PersonIdent committer;
+
+    private ObjectId commit;
+    private volatile boolean done = false;
+    private GfsCommit.Result result;
+    private Exception failure;
+
+    private Request(GitFileSystem gfs, ObjectId tree, RevCommit base, String message, PersonIdent author, PersonIdent committer) {
+      this.gfs = gfs;
+      this.tree = tree;
+      this.base = base;
+      this.message = message;
+      this.author = author;
+      this.committer = committer;
+    }
+
+    private void succeed(GfsCommit.Result result) {
+      if(!done) {
+        this.result = result;
+        done = true;
+      }
+    }
+
+    private void fail(Exception failure) {
+      if(!done) {
+        this.failure = failure;
+        done = true;
+      }
+    }
+
+    @Nonnull
+    private GfsCommit.Result getResult() throws IOException {
+      if(failure instanceof IOException)
+        throw (IOException) failure;
+      if(failure != null)
+        throw (RuntimeException) failure;
+      return result;
+    }
+
+  }
+
+}
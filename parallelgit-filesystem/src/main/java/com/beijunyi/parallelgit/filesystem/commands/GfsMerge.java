@@ -9,12 +9,15 @@ import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
 import com.beijunyi.parallelgit.filesystem.GitFileSystem;
 import com.beijunyi.parallelgit.filesystem.exceptions.GfsCheckoutConflictException;
 import com.beijunyi.parallelgit.filesystem.exceptions.NoBranchException;
+import com.beijunyi.parallelgit.filesystem.merge.GfsTreeMerger;
 import com.beijunyi.parallelgit.filesystem.merge.MergeConflict;
 import com.beijunyi.parallelgit.filesystem.merge.MergeNote;
 import com.beijunyi.parallelgit.utils.BranchUtils;
 import com.beijunyi.parallelgit.utils.CommitUtils;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.merge.*;
@@ -31,6 +34,7 @@ import static com.beijunyi.parallelgit.utils.RefUtils.getBranchRef;
 import static java.util.Collections.*;
 import static org.eclipse.jgit.dircache.DirCache.newInCore;
 import static org.eclipse.jgit.merge.MergeStrategy.RECURSIVE;
+import static org.eclipse.jgit.merge.MergeStrategy.RESOLVE;
 
 public class GfsMerge extends GfsCommand<GfsMerge.Result> {
 
@@ -49,6 +53,8 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
   private boolean commit = true;
   private PersonIdent committer;
   private String message;
+  private ObjectReader reader;
+  private Map<AnyObjectId, SortedMap<String, GitFileEntry>> trees;
 
   public GfsMerge(GitFileSystem gfs) {
     super(gfs);
@@ -118,6 +124,18 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
     return this;
   }
 
+  @Nonnull
+  GfsMerge reader(@Nullable ObjectReader reader) {
+    this.reader = reader;
+    return this;
+  }
+
+  @Nonnull
+  GfsMerge treeCache(@Nullable Map<AnyObjectId, SortedMap<String, GitFileEntry>> trees) {
+    this.trees = trees;
+    return this;
+  }
+
   private void prepareBranchHead() throws IOException {
     if(!status.isAttached())
       throw new NoBranchException();
@@ -170,10 +188,16 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
 
   @Nonnull
   private Result threeWayMerge(GfsStatusProvider.Update update) throws IOException {
+    if(strategy == RECURSIVE || strategy == RESOLVE) {
+      Result result = treeMerge(update);
+      if(result != null)
+        return result;
+    }
     Merger merger = prepareMerger();
     boolean success = merger.merge(headCommit, sourceHeadCommit);
     if(success) {
-      return updateFileSystemStatus(update, merger);
+      checkout(gfs, merger.getResultTreeId());
+      return updateFileSystemStatus(update, merger.getResultTreeId());
     } else {
       Map<String, MergeConflict> conflicts;
       if(merger instanceof ResolveMerger) {
@@ -188,6 +212,29 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
     }
   }
 
+  @Nullable
+  private Result treeMerge(GfsStatusProvider.Update update) throws IOException {
+    GfsTreeMerger merger = new GfsTreeMerger(repo, commitNames()).withTreeCache(trees);
+    AnyObjectId treeId = reader != null ? merger.merge(headCommit, sourceHeadCommit, reader) : merger.merge(headCommit, sourceHeadCommit);
+    if(treeId == null)
+      return null;
+    if(!merger.hasConflicts()) {
+      if(!tryCheckout(treeId))
+        return Result.checkoutConflict();
+      return updateFileSystemStatus(update, treeId);
+    }
+    Map<String, MergeConflict> conflicts = merger.getConflicts();
+    try {
+      handleConflicts(gfs, conflicts)
+        .withFormatter(formatter)
+        .checkout(treeId);
+    } catch(GfsCheckoutConflictException e) {
+      return Result.checkoutConflict();
+    }
+    writeConflictMergeNote(update, merger.getUnmergedPaths());
+    return Result.conflicting(conflicts);
+  }
+
   private void writeConflictMergeNote(GfsStatusProvider.Update update, List<String> unmergedPaths) {
     message = new MergeMessageFormatter().formatWithConflicts(message, unmergedPaths);
     if(squash) {
@@ -198,9 +245,7 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
   }
 
   @Nonnull
-  private Result updateFileSystemStatus(GfsStatusProvider.Update update, Merger merger) throws IOException {
-    AnyObjectId treeId = merger.getResultTreeId();
-    checkout(gfs, treeId);
+  private Result updateFileSystemStatus(GfsStatusProvider.Update update, AnyObjectId treeId) throws IOException {
     RevCommit newCommit = null;
     if(commit && !squash) {
       prepareCommitter();
@@ -240,12 +285,17 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
     if(merger instanceof ResolveMerger) {
       ResolveMerger resolver = ((ResolveMerger)merger);
       resolver.setDirCache(cache);
-      resolver.setCommitNames(new String[] {"BASE", branchRef.getName(), sourceRef.getName()});
+      resolver.setCommitNames(commitNames());
       resolver.setWorkingTreeIterator(iterateRoot(gfs));
     }
     return merger;
   }
 
+  @Nonnull
+  private String[] commitNames() {
+    return new String[] {"BASE", branchRef.getName(), sourceRef.getName()};
+  }
+
   private void prepareCommitter() {
     if(committer == null) committer = new PersonIdent(repo);
   }
@@ -259,7 +309,8 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
     MERGED,
     MERGED_SQUASHED,
     MERGED_NOT_COMMITTED,
-    CONFLICTING
+    CONFLICTING,
+    FAILED
   }
 
   public static class Result implements GfsCommandResult {
@@ -267,11 +318,17 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
     private final Status status;
     private final Map<String, MergeConflict> conflicts;
     private final RevCommit commit;
+    private final Exception failure;
 
-    private Result(Status status, Map<String, MergeConflict> conflicts, @Nullable RevCommit commit) {
+    private Result(Status status, Map<String, MergeConflict> conflicts, @Nullable RevCommit commit, @Nullable Exception failure) {
       this.status = status;
       this.conflicts = conflicts;
       this.commit = commit;
+      this.failure = failure;
+    }
+
+    private Result(Status status, Map<String, MergeConflict> conflicts, @Nullable RevCommit commit) {
+      this(status, conflicts, commit, null);
     }
 
     private Result(Status status, @Nullable RevCommit commit) {
@@ -324,6 +381,11 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
       return new Result(CONFLICTING, conflicts, null);
     }
 
+    @Nonnull
+    public static Result failed(Exception failure) {
+      return new Result(FAILED, Collections.<String, MergeConflict>emptyMap(), null, failure);
+    }
+
     @Override
     public boolean isSuccessful() {
       switch(status) {
@@ -354,6 +416,11 @@ public class GfsMerge extends GfsCommand<GfsMerge.Result> {
       return commit;
     }
 
+    @Nullable
+    public Exception getFailure() {
+      return failure;
+    }
+
   }
 
 }
@@ -0,0 +1,252 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.GfsCheckoutConflictException;
+import com.beijunyi.parallelgit.filesystem.exceptions.NoBranchException;
+import com.beijunyi.parallelgit.filesystem.exceptions.NoHeadCommitException;
+import com.beijunyi.parallelgit.filesystem.merge.GfsTreeMerger;
+import com.beijunyi.parallelgit.filesystem.merge.MergeConflict;
+import com.beijunyi.parallelgit.utils.BranchUtils;
+import com.beijunyi.parallelgit.utils.exceptions.NoSuchBranchException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import static com.beijunyi.parallelgit.filesystem.commands.GfsRebase.Status.*;
+import static com.beijunyi.parallelgit.filesystem.io.GfsDefaultCheckout.checkout;
+import static com.beijunyi.parallelgit.utils.CommitUtils.*;
+import static java.util.Collections.singletonList;
+
+public class GfsRebase extends GfsCommand<GfsRebase.Result> {
+
+  private String upstream;
+  private AnyObjectId upstreamId;
+  private String onto;
+  private AnyObjectId ontoId;
+  private PersonIdent committer;
+
+  private RevCommit headCommit;
+  private RevCommit upstreamCommit;
+  private RevCommit ontoCommit;
+  private Map<String, MergeConflict> conflicts;
+
+  public GfsRebase(GitFileSystem gfs) {
+    super(gfs);
+  }
+
+  @Nonnull
+  @Override
+  protected Result doExecute(GfsStatusProvider.Update update) throws IOException {
+    if(!status.isAttached())
+      throw new NoBranchException();
+    prepareCommits();
+    prepareCommitter();
+
+    if(ontoCommit.equals(upstreamCommit) && isMergedInto(upstreamCommit, headCommit, repo))
+      return Result.upToDate(headCommit);
+    if(isMergedInto(headCommit, ontoCommit, repo) && isMergedInto(upstreamCommit, ontoCommit, repo))
+      return updateHead(update, ontoCommit) ? Result.fastForward(ontoCommit) : Result.checkoutConflict();
+
+    RevCommit newHead = ontoCommit;
+    try(ObjectReader reader = repo.newObjectReader()) {
+      for(RevCommit commit : listCommitsToReplay(reader)) {
+        if(commit.getParentCount() > 1)
+          continue;
+        AnyObjectId tree = replay(commit, newHead, reader);
+        if(tree == null)
+          return Result.conflicting(commit, conflicts);
+        if(tree.equals(newHead.getTree()))
+          continue;
+        newHead = createCommit(commit.getFullMessage(), tree, commit.getAuthorIdent(), committer, singletonList(newHead), repo);
+      }
+    }
+    return updateHead(update, newHead) ? Result.rebased(newHead) : Result.checkoutConflict();
+  }
+
+  @Nonnull
+  public GfsRebase upstream(@Nullable String upstream) {
+    this.upstream = upstream;
+    return this;
+  }
+
+  @Nonnull
+  public GfsRebase upstream(@Nullable AnyObjectId upstreamId) {
+    this.upstreamId = upstreamId;
+    return this;
+  }
+
+  @Nonnull
+  public GfsRebase onto(@Nullable String onto) {
+    this.onto = onto;
+    return this;
+  }
+
+  @Nonnull
+  public GfsRebase onto(@Nullable AnyObjectId ontoId) {
+    this.ontoId = ontoId;
+    return this;
+  }
+
+  @Nonnull
+  public GfsRebase committer(@Nullable PersonIdent committer) {
+    this.committer = committer;
+    return this;
+  }
+
+  private void prepareCommits() throws IOException {
+    headCommit = status.commit();
+    if(headCommit == null)
+      throw new NoHeadCommitException();
+    if(upstreamId == null)
+      upstreamId = resolveBranch(upstream);
+    upstreamCommit = getCommit(upstreamId, repo);
+    if(ontoId == null)
+      ontoId = onto != null ? resolveBranch(onto) : upstreamCommit;
+    ontoCommit = getCommit(ontoId, repo);
+  }
+
+  @Nonnull
+  private AnyObjectId resolveBranch(@Nullable String name) throws IOException {
+    if(name == null)
+      throw new IllegalStateException("Upstream is not specified");
+    AnyObjectId ret = repo.resolve(name);
+    if(ret == null)
+      throw new NoSuchBranchException(name);
+    return ret;
+  }
+
+  @Nonnull
+  private List<RevCommit> listCommitsToReplay(ObjectReader reader) throws IOException {
+    List<RevCommit> ret = new ArrayList<>();
+    try(RevWalk rw = new RevWalk(reader)) {
+      rw.sort(RevSort.TOPO);
+      rw.sort(RevSort.REVERSE, true);
+      rw.markStart(rw.parseCommit(headCommit));
+      rw.markUninteresting(rw.parseCommit(upstreamCommit));
+      for(RevCommit commit : rw)
+        ret.add(commit);
+    }
+    return ret;
+  }
+
+  private void prepareCommitter() {
+    if(committer == null) committer = new PersonIdent(repo);
+  }
+
+  @Nullable
+  private AnyObjectId replay(RevCommit commit, RevCommit newHead, ObjectReader reader) throws IOException {
+    RevCommit parent = commit.getParentCount() > 0 ? getCommit(commit.getParent(0), reader) : null;
+    if(parent != null && parent.getTree().equals(newHead.getTree()))
+      return commit.getTree();
+    String[] names = {"BASE", getDefaultCommitName(newHead), getDefaultCommitName(commit)};
+    GfsTreeMerger merger = new GfsTreeMerger(repo, names);
+    AnyObjectId ret = merger.mergeOrResolve(parent != null ? parent.getTree() : null, newHead.getTree(), commit.getTree(), reader);
+    if(merger.hasConflicts()) {
+      conflicts = merger.getConflicts();
+      return null;
+    }
+    return ret;
+  }
+
+  private boolean updateHead(GfsStatusProvider.Update update, RevCommit newHead) throws IOException {
+    try {
+      checkout(gfs, newHead.getTree());
+    } catch(GfsCheckoutConflictException e) {
+      return false;
+    }
+    BranchUtils.rebase(status.branch(), newHead, headCommit, repo);
+    update.commit(newHead);
+    return true;
+  }
+
+  public enum Status {
+    CHECKOUT_CONFLICT,
+    UP_TO_DATE,
+    FAST_FORWARD,
+    REBASED,
+    CONFLICTING
+  }
+
+  public static class Result implements GfsCommandResult {
+
+    private final Status status;
+    private final Map<String, MergeConflict> conflicts;
+    private final RevCommit commit;
+    private final RevCommit conflictingCommit;
+
+    private Result(Status status, Map<String, MergeConflict> conflicts, @Nullable RevCommit commit, @Nullable RevCommit conflictingCommit) {
+      this.status = status;
+      this.conflicts = conflicts;
+      this.commit = commit;
+      this.conflictingCommit = conflictingCommit;
+    }
+
+    @Nonnull
+    public static Result checkoutConflict() {
+      return new Result(CHECKOUT_CONFLICT, Collections.<String, MergeConflict>emptyMap(), null, null);
+    }
+
+    @Nonnull
+    public static Result upToDate(RevCommit commit) {
+      return new Result(UP_TO_DATE, Collections.<String, MergeConflict>emptyMap(), commit, null);
+    }
+
+    @Nonnull
+    public static Result fastForward(RevCommit commit) {
+      return new Result(FAST_FORWARD, Collections.<String, MergeConflict>emptyMap(), commit, null);
+    }
+
+    @Nonnull
+    public static Result rebased(RevCommit commit) {
+      return new Result(REBASED, Collections.<String, MergeConflict>emptyMap(), commit, null);
+    }
+
+    @Nonnull
+    public static Result conflicting(RevCommit conflictingCommit, Map<String, MergeConflict> conflicts) {
+      return new Result(CONFLICTING, conflicts, null, conflictingCommit);
+    }
+
+    @Override
+    public boolean isSuccessful() {
+      switch(status) {
+        case UP_TO_DATE:
+        case FAST_FORWARD:
+        case REBASED:
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    @Nonnull
+    public Status getStatus() {
+      return status;
+    }
+
+    @Nonnull
+    public Map<String, MergeConflict> getConflicts() {
+      return conflicts;
+    }
+
+    @Nullable
+    public RevCommit getCommit() {
+      return commit;
+    }
+
+    @Nullable
+    public RevCommit getConflictingCommit() {
+      return conflictingCommit;
+    }
+
+  }
+
+}
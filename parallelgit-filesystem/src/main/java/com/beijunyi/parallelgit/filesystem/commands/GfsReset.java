@@ -49,8 +49,10 @@ public class GfsReset extends GfsCommand<GfsReset.Result> {
     prepareCommit();
     RevCommit commit = getCommit(revision, repo);
     BranchUtils.resetBranchHead(branch, commit, repo);
-    gfs.updateOrigin(commit.getTree());
-    if(!soft) gfs.reset();
+    if(soft)
+      gfs.updateOrigin(commit.getTree());
+    else
+      gfs.reset(commit.getTree());
     if(hard) update.clearMergeNote();
     update.commit(commit);
     return Result.success();
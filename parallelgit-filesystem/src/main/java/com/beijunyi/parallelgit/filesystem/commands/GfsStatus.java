@@ -0,0 +1,77 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import javax.annotation.Nonnull;
+
+import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.io.FileStatus;
+
+import static com.beijunyi.parallelgit.filesystem.io.FileStatus.Type.*;
+import static com.beijunyi.parallelgit.filesystem.io.GfsStatusCollector.collect;
+import static java.util.Collections.unmodifiableList;
+
+public class GfsStatus extends GfsCommand<GfsStatus.Result> {
+
+  public GfsStatus(GitFileSystem gfs) {
+    super(gfs);
+  }
+
+  @Nonnull
+  @Override
+  protected Result doExecute(GfsStatusProvider.Update update) throws IOException {
+    return new Result(collect(store.getRoot()));
+  }
+
+  public static class Result implements GfsCommandResult {
+
+    private final SortedMap<String, FileStatus> changes;
+
+    private Result(SortedMap<String, FileStatus> changes) {
+      this.changes = changes;
+    }
+
+    @Override
+    public boolean isSuccessful() {
+      return true;
+    }
+
+    public boolean isClean() {
+      return changes.isEmpty();
+    }
+
+    @Nonnull
+    public SortedMap<String, FileStatus> getChanges() {
+      return changes;
+    }
+
+    @Nonnull
+    public List<FileStatus> getAdded() {
+      return filter(ADDED);
+    }
+
+    @Nonnull
+    public List<FileStatus> getModified() {
+      return filter(MODIFIED);
+    }
+
+    @Nonnull
+    public List<FileStatus> getDeleted() {
+      return filter(DELETED);
+    }
+
+    @Nonnull
+    private List<FileStatus> filter(FileStatus.Type type) {
+      List<FileStatus> ret = new ArrayList<>();
+      for(FileStatus change : changes.values())
+        if(change.getType() == type)
+          ret.add(change);
+      return unmodifiableList(ret);
+    }
+
+  }
+
+}
@@ -0,0 +1,21 @@
+package com.beijunyi.parallelgit.filesystem.exceptions;
+
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import com.beijunyi.parallelgit.filesystem.merge.MergeConflict;
+
+public class GfsCommitConflictException extends IllegalStateException {
+
+  private final Map<String, MergeConflict> conflicts;
+
+  public GfsCommitConflictException(Map<String, MergeConflict> conflicts) {
+    this.conflicts = conflicts;
+  }
+
+  @Nonnull
+  public Map<String, MergeConflict> getConflicts() {
+    return conflicts;
+  }
+
+}
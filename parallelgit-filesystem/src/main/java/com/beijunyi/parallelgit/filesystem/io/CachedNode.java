@@ -0,0 +1,20 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import javax.annotation.Nullable;
+
+public final class CachedNode {
+
+  private final Node node;
+  private final long epoch;
+
+  CachedNode(Node node, long epoch) {
+    this.node = node;
+    this.epoch = epoch;
+  }
+
+  @Nullable
+  Node get() {
+    return node.getObjectService().getDetachEpoch() == epoch ? node : null;
+  }
+
+}
@@ -1,8 +1,10 @@
 package com.beijunyi.parallelgit.filesystem.io;
 
 import java.io.IOException;
+import java.nio.file.WatchEvent;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -14,11 +16,18 @@ import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 
 import static com.beijunyi.parallelgit.utils.io.GitFileEntry.*;
+import static java.nio.file.StandardWatchEventKinds.*;
 import static java.util.Collections.*;
 import static org.eclipse.jgit.lib.FileMode.TREE;
 
 public class DirectoryNode extends Node<TreeSnapshot, Map<String, Node>> {
 
+  private static final AtomicIntegerFieldUpdater<DirectoryNode> WATCHED_KEYS = AtomicIntegerFieldUpdater.newUpdater(DirectoryNode.class, "watchedKeys");
+
+  protected volatile TreeSnapshot snapshot;
+  private volatile List<GfsWatchKey> watchKeys;
+  private volatile int watchedKeys;
+
   protected DirectoryNode(ObjectId id, GfsObjectService objService) {
     super(id, TREE, objService);
   }
@@ -56,6 +65,28 @@ public class DirectoryNode extends Node<TreeSnapshot, Map<String, Node>> {
     return 0;
   }
 
+  @Nonnull
+  @Override
+  protected TreeSnapshot loadSnapshot(ObjectId id) throws IOException {
+    TreeSnapshot ret = super.loadSnapshot(id);
+    if(origin.getId().equals(id))
+      snapshot = ret;
+    return ret;
+  }
+
+  @Nonnull
+  @Override
+  public TreeStats getStats() throws IOException {
+    if(!isInitialized())
+      return TreeStats.ofTree(id, objService);
+    if(!isModified())
+      return TreeStats.ofTree(origin.getId(), objService);
+    TreeStats ret = TreeStats.EMPTY;
+    for(Node child : data.values())
+      ret = ret.plus(child.getStats());
+    return ret;
+  }
+
   @Override
   public void updateOrigin(GitFileEntry entry) throws IOException {
     super.updateOrigin(entry);
@@ -87,7 +118,35 @@ public class DirectoryNode extends Node<TreeSnapshot, Map<String, Node>> {
       if(updateOrigin)
         node.updateOrigin(entry);
     }
-    return ret;
+    return objService.isReadOnly() ? unmodifiableMap(ret) : ret;
+  }
+
+  @Override
+  protected boolean isContentModified() throws IOException {
+    TreeSnapshot snapshot = this.snapshot;
+    if(!isInitialized() || snapshot == null || !snapshot.getId().equals(origin.getId()))
+      return super.isContentModified();
+    Map<String, GitFileEntry> entries = snapshot.getData();
+    for(Map.Entry<String, Node> child : data.entrySet()) {
+      Node node = child.getValue();
+      GitFileEntry entry = entries.get(child.getKey());
+      if(entry == null) {
+        if(!node.isTrivial())
+          return true;
+      } else if(!entry.equals(node.getOrigin())) {
+        return super.isContentModified();
+      } else if(node.isModified())
+        return true;
+    }
+    for(String name : entries.keySet())
+      if(!data.containsKey(name))
+        return true;
+    return false;
+  }
+
+  @Override
+  protected boolean isTrivial() throws IOException {
+    return isInitialized() ? isTrivial(data) : isTrivial(id);
   }
 
   @Override
@@ -149,24 +208,41 @@ public class DirectoryNode extends Node<TreeSnapshot, Map<String, Node>> {
   }
 
   public boolean addChild(String name, Node child, boolean replace) throws IOException {
+    checkWritable();
     if(!replace && getData().containsKey(name))
       return false;
     if(snapshot != null) {
       GitFileEntry origin = snapshot.getChild(name);
       if(!origin.isMissing()) child.updateOrigin(origin);
     }
-    getData().put(name, child);
+    Node previous = getData().put(name, child);
+    if(previous != null && previous != child) {
+      if(previous instanceof DirectoryNode && ((DirectoryNode) previous).watchedKeys > 0) {
+        DirectoryNode dir = (DirectoryNode) previous;
+        adjustWatchedKeys(-dir.watchedKeys);
+        if(child instanceof DirectoryNode)
+          dir.transferWatchKeys((DirectoryNode) child);
+      }
+      previous.exile();
+    }
     id = null;
+    invalidateModified();
     invalidateParentCache();
+    notifyWatchers(previous == null ? ENTRY_CREATE : ENTRY_MODIFY, name);
     return true;
   }
 
   public boolean removeChild(String name) throws IOException {
+    checkWritable();
     Node removed = getData().remove(name);
     if(removed != null) {
+      if(removed instanceof DirectoryNode)
+        adjustWatchedKeys(-((DirectoryNode) removed).watchedKeys);
       removed.exile();
       id = null;
+      invalidateModified();
       invalidateParentCache();
+      notifyWatchers(ENTRY_DELETE, name);
       return true;
     }
     return false;
@@ -181,7 +257,7 @@ public class DirectoryNode extends Node<TreeSnapshot, Map<String, Node>> {
   @Nonnull
   @Override
   protected Map<String, Node> getDefaultData() {
-    return new ConcurrentHashMap<>();
+    return objService.isReadOnly() ? new HashMap<String, Node>() : new ConcurrentHashMap<String, Node>();
   }
 
   @Nonnull
@@ -214,12 +290,143 @@ public class DirectoryNode extends Node<TreeSnapshot, Map<String, Node>> {
     }
   }
 
+  synchronized void addWatchKey(GfsWatchKey key) {
+    List<GfsWatchKey> keys = watchKeys != null ? new ArrayList<>(watchKeys) : new ArrayList<GfsWatchKey>();
+    keys.add(key);
+    watchKeys = unmodifiableList(keys);
+    adjustWatchedKeys(1);
+  }
+
+  synchronized void removeWatchKey(GfsWatchKey key) {
+    if(watchKeys != null) {
+      List<GfsWatchKey> keys = new ArrayList<>(watchKeys);
+      if(keys.remove(key))
+        adjustWatchedKeys(-1);
+      watchKeys = keys.isEmpty() ? null : unmodifiableList(keys);
+    }
+  }
+
+  private void adjustWatchedKeys(int delta) {
+    if(delta == 0)
+      return;
+    DirectoryNode current = this;
+    while(current != null) {
+      WATCHED_KEYS.addAndGet(current, delta);
+      current = current.parent;
+    }
+  }
+
+  void notifyChildModified(Node child) {
+    if(watchKeys == null || !isInitialized())
+      return;
+    for(Map.Entry<String, Node> entry : data.entrySet())
+      if(entry.getValue() == child) {
+        notifyWatchers(ENTRY_MODIFY, entry.getKey());
+        break;
+      }
+  }
+
+  private void transferWatchKeys(DirectoryNode target) throws IOException {
+    List<GfsWatchKey> keys;
+    synchronized(this) {
+      keys = watchKeys;
+      watchKeys = null;
+    }
+    if(keys != null)
+      moveWatchKeys(keys, target);
+    Map<String, Node> children = data;
+    if(children == null)
+      return;
+    for(Map.Entry<String, Node> child : children.entrySet()) {
+      Node node = child.getValue();
+      if(!(node instanceof DirectoryNode) || ((DirectoryNode) node).watchedKeys <= 0)
+        continue;
+      Node targetChild = target.getChild(child.getKey());
+      if(targetChild instanceof DirectoryNode)
+        ((DirectoryNode) node).transferWatchKeys((DirectoryNode) targetChild);
+    }
+  }
+
+  private void moveWatchKeys(List<GfsWatchKey> keys, DirectoryNode target) throws IOException {
+    for(GfsWatchKey key : keys) {
+      key.setDirectory(target);
+      target.addWatchKey(key);
+    }
+    Map<String, Node> before = getData();
+    Map<String, Node> after = target.getData();
+    for(Map.Entry<String, Node> child : before.entrySet()) {
+      String name = child.getKey();
+      Node node = after.get(name);
+      if(node == null)
+        target.notifyWatchers(ENTRY_DELETE, name);
+      else if(!node.getMode().equals(child.getValue().getMode()) || !node.getObjectId(false).equals(child.getValue().getObjectId(false)))
+        target.notifyWatchers(ENTRY_MODIFY, name);
+    }
+    for(String name : after.keySet())
+      if(!before.containsKey(name))
+        target.notifyWatchers(ENTRY_CREATE, name);
+  }
+
+  void notifyWatchers(WatchEvent.Kind<?> kind, @Nullable String name) {
+    List<GfsWatchKey> keys = watchKeys;
+    if(keys != null)
+      for(GfsWatchKey key : keys)
+        key.signal(kind, name);
+  }
+
+  @Override
+  protected void reset(GitFileEntry entry) {
+    discardChildren();
+    super.reset(entry);
+    notifyWatchers(OVERFLOW, null);
+  }
+
   @Override
   protected void exile() {
     super.exile();
-    if(isInitialized()) {
-      for(Node child : data.values())
-        child.exile();
+    if(watchedKeys > 0) {
+      invalidateWatchKeys();
+      invalidateDescendantWatchKeys();
+    }
+  }
+
+  private synchronized void invalidateWatchKeys() {
+    if(watchKeys != null) {
+      for(GfsWatchKey key : watchKeys)
+        key.invalidate();
+      watchKeys = null;
+    }
+    watchedKeys = 0;
+  }
+
+  void discardChildren() {
+    objService.advanceDetachEpoch();
+    Map<String, Node> children = data;
+    if(children == null)
+      return;
+    for(Node child : children.values())
+      child.parent = null;
+    List<GfsWatchKey> keys = watchKeys;
+    int descendants = watchedKeys - (keys != null ? keys.size() : 0);
+    if(descendants > 0) {
+      adjustWatchedKeys(-descendants);
+      invalidateDescendantWatchKeys(children);
+    }
+  }
+
+  private void invalidateDescendantWatchKeys() {
+    Map<String, Node> children = data;
+    if(children != null)
+      invalidateDescendantWatchKeys(children);
+  }
+
+  private static void invalidateDescendantWatchKeys(Map<String, Node> children) {
+    for(Node child : children.values()) {
+      if(child instanceof DirectoryNode && ((DirectoryNode) child).watchedKeys > 0) {
+        DirectoryNode dir = (DirectoryNode) child;
+        dir.invalidateWatchKeys();
+        dir.invalidateDescendantWatchKeys();
+      }
     }
   }
 
@@ -0,0 +1,11 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import javax.annotation.Nonnull;
+
+public interface FileContentProvider {
+
+  @Nonnull
+  byte[] getContent() throws IOException;
+
+}
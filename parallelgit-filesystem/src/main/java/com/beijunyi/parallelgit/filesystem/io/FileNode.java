@@ -7,6 +7,7 @@ import javax.annotation.Nonnull;
 
 import com.beijunyi.parallelgit.filesystem.exceptions.IncompatibleFileModeException;
 import com.beijunyi.parallelgit.utils.io.BlobSnapshot;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 
@@ -17,6 +18,8 @@ public class FileNode extends Node<BlobSnapshot, byte[]> {
   private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
   private long size = -1;
+  private volatile FileContentProvider provider;
+  private volatile boolean sharedData = false;
 
   private FileNode(ObjectId id, FileMode mode, DirectoryNode parent) {
     super(id, mode, parent);
@@ -40,6 +43,14 @@ public class FileNode extends Node<BlobSnapshot, byte[]> {
     return new FileNode(bytes, mode, parent);
   }
 
+  @Nonnull
+  public static FileNode fromProvider(FileContentProvider provider, FileMode mode, DirectoryNode parent) {
+    FileNode ret = new FileNode(mode, parent);
+    ret.data = null;
+    ret.provider = provider;
+    return ret;
+  }
+
   @Nonnull
   public static FileNode newFile(FileMode mode, DirectoryNode parent) {
     return new FileNode(mode, parent);
@@ -58,10 +69,24 @@ public class FileNode extends Node<BlobSnapshot, byte[]> {
   public long getSize() throws IOException {
     if(size != -1)
       return size;
-    size = id != null ? objService.getBlobSize(id) : 0;
+    if(provider != null)
+      loadProvidedContent();
+    byte[] data = this.data;
+    if(data != null)
+      size = data.length;
+    else
+      size = id != null ? objService.getBlobSize(id) : 0;
     return size;
   }
 
+  @Nonnull
+  @Override
+  public TreeStats getStats() throws IOException {
+    if(GITLINK.equals(mode))
+      return TreeStats.EMPTY;
+    return TreeStats.ofFile(getSize());
+  }
+
   @Nonnull
   @Override
   protected byte[] getDefaultData() {
@@ -69,14 +94,41 @@ public class FileNode extends Node<BlobSnapshot, byte[]> {
   }
 
   @Nonnull
-  public InputStream getInputStream() throws IOException {
-    if (id == null && data == null)
-        data = new byte[0];
-    if(data != null) {
-      return new ByteArrayInputStream(data);
+  @Override
+  public ObjectId getObjectId(boolean persist) throws IOException {
+    if(provider != null)
+      loadProvidedContent();
+    return super.getObjectId(persist);
+  }
+
+  @Nonnull
+  @Override
+  protected byte[] getData() throws IOException {
+    if(provider != null)
+      loadProvidedContent();
+    if(data == null && id != null) {
+      data = objService.readBlobData(id);
+      sharedData = true;
     }
-    BlobSnapshot snapshot = loadSnapshot(id);
-    return snapshot.getInputStream();
+    return super.getData();
+  }
+
+  @Nonnull
+  synchronized byte[] getWritableData() throws IOException {
+    byte[] ret = getData();
+    if(sharedData) {
+      ret = ret.clone();
+      data = ret;
+      sharedData = false;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  public InputStream getInputStream() throws IOException {
+    if(id == null && data == null && provider == null)
+      data = getDefaultData();
+    return new ByteArrayInputStream(getData());
   }
 
 
@@ -86,6 +138,11 @@ public class FileNode extends Node<BlobSnapshot, byte[]> {
     return snapshot.getData();
   }
 
+  @Override
+  protected boolean isTrivial() {
+    return false;
+  }
+
   @Override
   protected boolean isTrivial(byte[] data) {
     return false;
@@ -101,10 +158,15 @@ public class FileNode extends Node<BlobSnapshot, byte[]> {
   @Override
   public Node clone(DirectoryNode parent) throws IOException {
     FileNode ret;
-    if(isInitialized()) {
+    FileContentProvider provider = this.provider;
+    if(provider != null) {
+      ret = fromProvider(provider, mode, parent);
+    } else if(isInitialized()) {
       ret = newFile(mode, parent);
       ret.data = data;
       ret.size = data.length;
+      ret.sharedData = true;
+      sharedData = true;
     } else if(id != null) {
       ret = FileNode.fromBlob(id , mode, parent);
       parent.getObjectService().pullObject(id, objService);
@@ -114,10 +176,32 @@ public class FileNode extends Node<BlobSnapshot, byte[]> {
   }
 
   public void setBytes(byte[] bytes) {
+    checkWritable();
+    this.provider = null;
     this.data = bytes;
     this.size = bytes.length;
+    this.sharedData = false;
     id = null;
+    invalidateModified();
     invalidateParentCache();
+    notifyParentWatchers();
+  }
+
+  @Override
+  protected void reset(GitFileEntry entry) {
+    provider = null;
+    size = -1;
+    super.reset(entry);
+  }
+
+  private synchronized void loadProvidedContent() throws IOException {
+    FileContentProvider provider = this.provider;
+    if(provider != null) {
+      byte[] content = provider.getContent();
+      data = content;
+      size = content.length;
+      this.provider = null;
+    }
   }
 
   protected void checkFileMode(FileMode proposed) {
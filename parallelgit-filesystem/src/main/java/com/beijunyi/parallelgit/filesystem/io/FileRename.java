@@ -0,0 +1,58 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import javax.annotation.Nonnull;
+
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+
+public class FileRename {
+
+  private final String oldPath;
+  private final String newPath;
+  private final GitFileEntry oldEntry;
+  private final GitFileEntry newEntry;
+  private final int score;
+  private final boolean copy;
+
+  FileRename(String oldPath, String newPath, GitFileEntry oldEntry, GitFileEntry newEntry, int score, boolean copy) {
+    this.oldPath = oldPath;
+    this.newPath = newPath;
+    this.oldEntry = oldEntry;
+    this.newEntry = newEntry;
+    this.score = score;
+    this.copy = copy;
+  }
+
+  @Nonnull
+  public String getOldPath() {
+    return oldPath;
+  }
+
+  @Nonnull
+  public String getNewPath() {
+    return newPath;
+  }
+
+  @Nonnull
+  public GitFileEntry getOldEntry() {
+    return oldEntry;
+  }
+
+  @Nonnull
+  public GitFileEntry getNewEntry() {
+    return newEntry;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public boolean isCopy() {
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    return (copy ? "COPY " : "RENAME ") + oldPath + " -> " + newPath + " (" + score + ")";
+  }
+
+}
@@ -0,0 +1,41 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import javax.annotation.Nonnull;
+
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.TreeChange;
+
+import static com.beijunyi.parallelgit.filesystem.io.FileStatus.Type.*;
+
+public class FileStatus extends TreeChange {
+
+  private FileStatus(String path, GitFileEntry oldEntry, GitFileEntry newEntry) {
+    super(path, oldEntry, newEntry);
+  }
+
+  @Nonnull
+  public static FileStatus newStatus(String path, GitFileEntry oldEntry, GitFileEntry newEntry) {
+    return new FileStatus(path, oldEntry, newEntry);
+  }
+
+  @Nonnull
+  public Type getType() {
+    if(isAdded())
+      return ADDED;
+    if(isDeleted())
+      return DELETED;
+    return MODIFIED;
+  }
+
+  @Override
+  public String toString() {
+    return getType() + " " + getPath();
+  }
+
+  public enum Type {
+    ADDED,
+    MODIFIED,
+    DELETED
+  }
+
+}
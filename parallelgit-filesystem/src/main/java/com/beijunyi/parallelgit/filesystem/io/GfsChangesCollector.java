@@ -2,34 +2,40 @@ package com.beijunyi.parallelgit.filesystem.io;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
 import javax.annotation.Nonnull;
 
 import com.beijunyi.parallelgit.filesystem.GitFileSystem;
 import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.ParallelTasks;
 import org.eclipse.jgit.lib.FileMode;
 
-import static com.beijunyi.parallelgit.filesystem.utils.GfsPathUtils.*;
-
 public class GfsChangesCollector {
 
   private static final GfsChange DELETE_NODE = new DeleteNode();
   private static final GfsChange PREPARE_DIRECTORY = new MakeDirectory();
 
-  private final Map<String, GfsChange> changes = new HashMap<>();
-  private final Map<String, Set<String>> changedDirs = new HashMap<>();
-
-  private final Queue<DirectoryNode> dirs = new LinkedList<>();
-  private final Queue<String> paths = new LinkedList<>();
+  private final ChangeEntry root = new ChangeEntry();
 
-  public boolean isEmpty() {
-    return changes.isEmpty();
+  public synchronized boolean isEmpty() {
+    return root.isEmpty();
   }
 
-  public void addChange(String path, GfsChange change) {
-    if(changes.containsKey(path))
+  public synchronized void addChange(String path, GfsChange change) {
+    ChangeEntry entry = root;
+    int length = path.length();
+    int start = 0;
+    while(start < length) {
+      int end = path.indexOf('/', start);
+      if(end < 0)
+        end = length;
+      if(end > start)
+        entry = entry.getOrCreateChild(path.substring(start, end));
+      start = end + 1;
+    }
+    if(entry.change != null)
       throw new IllegalStateException();
-    changes.put(path, change);
-    addChangedDirectory(path);
+    entry.change = change;
   }
 
   public void addChange(String path, GitFileEntry entry) {
@@ -47,59 +53,82 @@ public class GfsChangesCollector {
     addChange(path, new UpdateFile(bytes, mode));
   }
 
-  public void applyTo(GitFileSystem gfs) throws IOException {
-    dirs.add(gfs.getFileStore().getRoot());
-    paths.add("/");
-    while(!dirs.isEmpty()) {
-      DirectoryNode dir = dirs.poll();
-      String path = paths.poll();
-      applyChangesToDir(dir, path);
+  public void addChange(String path, FileContentProvider provider, FileMode mode) {
+    addChange(path, new UpdateFile(provider, mode));
+  }
+
+  public synchronized void applyTo(GitFileSystem gfs) throws IOException {
+    DirectoryNode dir = gfs.getFileStore().getRoot();
+    List<SubtreeChanges> subtrees = new ArrayList<>();
+    for(Map.Entry<String, ChangeEntry> child : root.children.entrySet()) {
+      String name = child.getKey();
+      ChangeEntry entry = child.getValue();
+      if(entry.change != null)
+        entry.change.applyTo(dir, name);
+      if(!entry.isEmpty())
+        subtrees.add(new SubtreeChanges(prepareDirectory(name, dir), entry));
     }
+    ParallelTasks.runAll(subtrees);
   }
 
-  private void addChangedDirectory(String path) {
-    if(isRoot(path))
-      return;
-    int parentLength = path.lastIndexOf('/');
-    if(parentLength >= 0) {
-      String parent = path.substring(0, parentLength == 0 ? 1 : parentLength);
-      String filename = path.substring(parentLength + 1);
-      Set<String> siblings = childrenOf(parent);
-      if(siblings.add(filename))
-        addChangedDirectory(parent);
+  private static void applyChanges(DirectoryNode dir, ChangeEntry changes) throws IOException {
+    for(Map.Entry<String, ChangeEntry> child : changes.children.entrySet()) {
+      String name = child.getKey();
+      ChangeEntry entry = child.getValue();
+      if(entry.change != null)
+        entry.change.applyTo(dir, name);
+      if(!entry.isEmpty())
+        applyChanges(prepareDirectory(name, dir), entry);
     }
   }
 
   @Nonnull
-  private Set<String> childrenOf(String parent) {
-    Set<String> ret = changedDirs.get(parent);
+  private static DirectoryNode prepareDirectory(String name, DirectoryNode parent) throws IOException {
+    DirectoryNode ret = (DirectoryNode) parent.getChild(name);
     if(ret == null) {
-      ret = new HashSet<>();
-      changedDirs.put(parent, ret);
+      ret = DirectoryNode.newDirectory(parent);
+      parent.addChild(name, ret, false);
     }
     return ret;
   }
 
-  private void applyChangesToDir(DirectoryNode dir, String path) throws IOException {
-    String prefix = addTrailingSlash(path);
-    for(String childName : childrenOf(path)) {
-      String childPath = prefix + childName;
-      GfsChange change = changes.get(childPath);
-      if(change != null)
-        change.applyTo(dir, childName);
-      if(changedDirs.containsKey(childPath))
-        addSubDirectoryToQueue(childPath, childName, dir);
+  private static class ChangeEntry {
+
+    private final SortedMap<String, ChangeEntry> children = new TreeMap<>();
+    private GfsChange change;
+
+    private boolean isEmpty() {
+      return children.isEmpty();
     }
+
+    @Nonnull
+    private ChangeEntry getOrCreateChild(String name) {
+      ChangeEntry ret = children.get(name);
+      if(ret == null) {
+        ret = new ChangeEntry();
+        children.put(name, ret);
+      }
+      return ret;
+    }
+
   }
 
-  private void addSubDirectoryToQueue(String childPath, String childName, DirectoryNode dir) throws IOException {
-    DirectoryNode child = (DirectoryNode) dir.getChild(childName);
-    if(child == null) {
-      child = DirectoryNode.newDirectory(dir);
-      dir.addChild(childName, child, false);
+  private static class SubtreeChanges implements Callable<Void> {
+
+    private final DirectoryNode dir;
+    private final ChangeEntry changes;
+
+    private SubtreeChanges(DirectoryNode dir, ChangeEntry changes) {
+      this.dir = dir;
+      this.changes = changes;
     }
-    dirs.add(child);
-    paths.add(childPath);
+
+    @Override
+    public Void call() throws IOException {
+      applyChanges(dir, changes);
+      return null;
+    }
+
   }
 
 }
@@ -1,7 +1,7 @@
 package com.beijunyi.parallelgit.filesystem.io;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 import javax.annotation.Nonnull;
 
 import com.beijunyi.parallelgit.filesystem.exceptions.GfsCheckoutConflictException;
@@ -10,26 +10,26 @@ import static java.util.Collections.unmodifiableMap;
 
 public class GfsCheckoutChangesCollector extends GfsChangesCollector {
 
-  private final Map<String, GfsCheckoutConflict> conflicts = new HashMap<>();
+  private final Map<String, GfsCheckoutConflict> conflicts = new TreeMap<>();
   private final boolean failsOnConflict;
 
   public GfsCheckoutChangesCollector(boolean failsOnConflict) {
     this.failsOnConflict = failsOnConflict;
   }
 
-  public void addConflict(GfsCheckoutConflict conflict) {
+  public synchronized void addConflict(GfsCheckoutConflict conflict) {
     conflicts.put(conflict.getPath(), conflict);
     if(failsOnConflict)
       throw new GfsCheckoutConflictException(conflict);
   }
 
-  public boolean hasConflicts() {
+  public synchronized boolean hasConflicts() {
     return !conflicts.isEmpty();
   }
 
   @Nonnull
-  public Map<String, GfsCheckoutConflict> getConflicts() {
-    return unmodifiableMap(conflicts);
+  public synchronized Map<String, GfsCheckoutConflict> getConflicts() {
+    return unmodifiableMap(new TreeMap<>(conflicts));
   }
 
 }
@@ -2,26 +2,34 @@ package com.beijunyi.parallelgit.filesystem.io;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.filesystem.GfsStatusProvider;
 import com.beijunyi.parallelgit.filesystem.GitFileSystem;
 import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.ParallelTasks;
+import com.beijunyi.parallelgit.utils.io.TreeSnapshot;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.treewalk.*;
 
 import static com.beijunyi.parallelgit.filesystem.io.GfsCheckoutConflict.threeWayConflict;
 import static com.beijunyi.parallelgit.filesystem.io.GfsTreeIterator.iterateRoot;
-import static com.beijunyi.parallelgit.filesystem.utils.GfsPathUtils.toAbsolutePath;
+import static com.beijunyi.parallelgit.filesystem.utils.GfsPathUtils.*;
+import static com.beijunyi.parallelgit.utils.io.GitFileEntry.*;
+import static java.util.Collections.emptyMap;
 
 public class GfsDefaultCheckout {
 
   private static final int HEAD = 0;
   private static final int TARGET = 1;
   private static final int WORKTREE = 2;
+  private static final String ROOT_PATH = "/";
 
   private final GitFileSystem gfs;
   private final GfsStatusProvider status;
@@ -45,6 +53,10 @@ public class GfsDefaultCheckout {
     new GfsDefaultCheckout(gfs).checkout(tree);
   }
 
+  public static void checkout(GitFileSystem gfs, @Nullable AnyObjectId headTree, AnyObjectId tree) throws IOException {
+    new GfsDefaultCheckout(gfs).checkout(headTree, tree);
+  }
+
   @Nonnull
   public GfsDefaultCheckout ignoredFiles(Collection<String> ignoredFiles) {
     this.ignoredFiles = new HashSet<>(ignoredFiles);
@@ -59,7 +71,17 @@ public class GfsDefaultCheckout {
   }
 
   public void checkout(AnyObjectId tree) throws IOException {
-    checkout(new CanonicalTreeParser(null, reader, tree));
+    RevCommit head = status.commit();
+    checkout(head != null ? head.getTree() : null, tree);
+  }
+
+  public void checkout(@Nullable AnyObjectId headTree, AnyObjectId tree) throws IOException {
+    GitFileEntry headEntry = headTree != null ? newTreeEntry(headTree.toObjectId()) : missingEntry();
+    List<SubtreeCheckout> subtrees = new ArrayList<>();
+    collectChanges(ROOT_PATH, headEntry, newTreeEntry(tree.toObjectId()), gfs.getFileStore().getRoot(), reader, subtrees);
+    ParallelTasks.runAll(subtrees);
+    if(!hasConflicts())
+      applyChanges();
   }
 
   public void checkout(DirCache cache) throws IOException {
@@ -105,6 +127,68 @@ public class GfsDefaultCheckout {
     }
   }
 
+  private void collectChanges(String path, GitFileEntry head, GitFileEntry target, DirectoryNode worktree, ObjectReader reader, @Nullable List<SubtreeCheckout> subtrees) throws IOException {
+    Map<String, GitFileEntry> headChildren = listChildren(head, reader);
+    Map<String, GitFileEntry> targetChildren = listChildren(target, reader);
+    Map<String, Node> worktreeChildren = worktree.getData();
+    SortedSet<String> names = new TreeSet<>(headChildren.keySet());
+    names.addAll(targetChildren.keySet());
+    names.addAll(worktreeChildren.keySet());
+    String prefix = addTrailingSlash(path);
+    for(String name : names) {
+      String childPath = prefix + name;
+      if(skips(childPath))
+        continue;
+      GitFileEntry headChild = entryOf(headChildren, name);
+      GitFileEntry targetChild = entryOf(targetChildren, name);
+      if(headChild.equals(targetChild))
+        continue;
+      Node node = worktreeChildren.get(name);
+      if(targetChild.isSubtree() && isModifiedDirectory(node, headChild)) {
+        enterSubtree(childPath, headChild, targetChild, (DirectoryNode) node, reader, subtrees);
+        continue;
+      }
+      GitFileEntry worktreeChild = entryOf(node, headChild);
+      if(mergeEntries(childPath, headChild, targetChild, worktreeChild))
+        enterSubtree(childPath, headChild, targetChild, (DirectoryNode) node, reader, subtrees);
+    }
+  }
+
+  private void enterSubtree(String path, GitFileEntry head, GitFileEntry target, DirectoryNode worktree, ObjectReader reader, @Nullable List<SubtreeCheckout> subtrees) throws IOException {
+    if(subtrees != null)
+      subtrees.add(new SubtreeCheckout(path, head, target, worktree));
+    else
+      collectChanges(path, head, target, worktree, reader, null);
+  }
+
+  @Nonnull
+  private static Map<String, GitFileEntry> listChildren(GitFileEntry entry, ObjectReader reader) throws IOException {
+    if(!entry.isSubtree())
+      return emptyMap();
+    return TreeSnapshot.load(entry.getId(), reader).getData();
+  }
+
+  @Nonnull
+  private static GitFileEntry entryOf(Map<String, GitFileEntry> entries, String name) {
+    GitFileEntry ret = entries.get(name);
+    return ret != null ? ret : missingEntry();
+  }
+
+  private static boolean isModifiedDirectory(@Nullable Node node, GitFileEntry head) throws IOException {
+    return node != null && node.isDirectory() && head.isSubtree() && head.equals(node.getOrigin()) && node.isModified() && !node.isTrivial();
+  }
+
+  @Nonnull
+  private static GitFileEntry entryOf(@Nullable Node node, GitFileEntry head) throws IOException {
+    if(node == null)
+      return missingEntry();
+    if(head.equals(node.getOrigin()) && !node.isModified())
+      return head;
+    if(node.isTrivial())
+      return missingEntry();
+    return newEntry(node.getObjectId(false), node.getMode());
+  }
+
   private boolean mergeEntries(String path, GitFileEntry head, GitFileEntry target, GitFileEntry worktree) throws IOException {
     if(target.equals(worktree) || target.equals(head)) return false;
     if(head.equals(worktree)) {
@@ -116,4 +200,28 @@ public class GfsDefaultCheckout {
     return false;
   }
 
+  private class SubtreeCheckout implements Callable<Void> {
+
+    private final String path;
+    private final GitFileEntry head;
+    private final GitFileEntry target;
+    private final DirectoryNode worktree;
+
+    private SubtreeCheckout(String path, GitFileEntry head, GitFileEntry target, DirectoryNode worktree) {
+      this.path = path;
+      this.head = head;
+      this.target = target;
+      this.worktree = worktree;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      try(ObjectReader reader = gfs.getRepository().newObjectReader()) {
+        collectChanges(path, head, target, worktree, reader, null);
+      }
+      return null;
+    }
+
+  }
+
 }
@@ -1,30 +1,41 @@
 package com.beijunyi.parallelgit.filesystem.io;
 
 import java.io.IOException;
-import java.nio.file.ClosedDirectoryStreamException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.util.*;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.filesystem.GitPath;
 
-public class GfsDirectoryStream implements DirectoryStream<Path> {
+import static java.util.Arrays.asList;
 
+public class GfsDirectoryStream implements SecureDirectoryStream<Path> {
+
+  private static final String PARENT_NAME = "..";
+
+  private final DirectoryNode dir;
   private final GitPath parent;
   private final List<String> children;
   private final Filter<? super Path> filter;
+  private final long epoch;
   private volatile boolean closed = false;
 
-  public GfsDirectoryStream(DirectoryNode dir, GitPath parent, @Nullable Filter<? super Path> filter) throws IOException {
+  GfsDirectoryStream(DirectoryNode dir, GitPath parent, @Nullable Filter<? super Path> filter, long epoch) throws IOException {
+    this.dir = dir;
     this.parent = parent;
     this.filter = filter;
+    this.epoch = epoch;
     children = dir.listChildren();
   }
 
+  public GfsDirectoryStream(DirectoryNode dir, GitPath parent, @Nullable Filter<? super Path> filter) throws IOException {
+    this(dir, parent, filter, dir.getObjectService().getDetachEpoch());
+  }
+
   @Nonnull
   @Override
   public Iterator<Path> iterator() {
@@ -38,6 +49,7 @@ public class GfsDirectoryStream implements DirectoryStream<Path> {
           String child = childrenIt.next();
           GitPath childPath = parent.resolve(child);
           try {
+            cacheChildNode(childPath, child);
             if(filter == null || filter.accept(childPath)) {
               next = childPath;
               return true;
@@ -73,11 +85,79 @@ public class GfsDirectoryStream implements DirectoryStream<Path> {
     };
   }
 
+  @Nonnull
+  @Override
+  public GfsDirectoryStream newDirectoryStream(Path path, LinkOption... options) throws IOException {
+    checkNotClosed();
+    GitPath target = normalize(path);
+    return new GfsDirectoryStream(GfsIO.findDirectory(dir, target), parent.resolve(target), null, epoch);
+  }
+
+  @Nonnull
+  @Override
+  public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+    checkNotClosed();
+    return GfsIO.newByteChannel(dir, normalize(path), options, asList(attrs));
+  }
+
+  @Override
+  public void deleteFile(Path path) throws IOException {
+    checkNotClosed();
+    GfsIO.deleteFile(dir, normalize(path));
+  }
+
+  @Override
+  public void deleteDirectory(Path path) throws IOException {
+    checkNotClosed();
+    GfsIO.deleteDirectory(dir, normalize(path));
+  }
+
+  @Override
+  public void move(Path source, SecureDirectoryStream<Path> targetDir, Path target) throws IOException {
+    checkNotClosed();
+    if(!(targetDir instanceof GfsDirectoryStream))
+      throw new ProviderMismatchException();
+    GfsDirectoryStream that = (GfsDirectoryStream) targetDir;
+    that.checkNotClosed();
+    GfsIO.move(dir, normalize(source), that.dir, that.normalize(target));
+  }
+
+  @Nonnull
+  @Override
+  public <V extends FileAttributeView> V getFileAttributeView(Class<V> type) {
+    checkNotClosed();
+    return GfsFileAttributeView.forNode(dir, type);
+  }
+
+  @Nonnull
+  @Override
+  public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+    checkNotClosed();
+    return GfsFileAttributeView.forPath(dir, normalize(path), type);
+  }
+
   @Override
   public void close() throws IOException {
     closed = true;
   }
 
+  private void cacheChildNode(GitPath childPath, String child) throws IOException {
+    if(childPath.isAbsolute()) {
+      Node node = dir.getChild(child);
+      if(node != null) GfsIO.cacheNode(childPath, node, epoch);
+    }
+  }
+
+  @Nonnull
+  private GitPath normalize(Path path) {
+    if(!(path instanceof GitPath))
+      throw new ProviderMismatchException();
+    GitPath ret = ((GitPath) path).normalize();
+    if(!ret.isAbsolute() && ret.getNameCount() > 0 && PARENT_NAME.equals(ret.getName(0).toString()))
+      ret = parent.resolve(ret).toRealPath();
+    return ret;
+  }
+
   private void checkNotClosed() throws ClosedDirectoryStreamException {
     if(closed)
       throw new ClosedDirectoryStreamException();
@@ -1,11 +1,13 @@
 package com.beijunyi.parallelgit.filesystem.io;
 
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.attribute.*;
 import java.util.*;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.beijunyi.parallelgit.filesystem.GitPath;
 import org.eclipse.jgit.lib.FileMode;
 
 import static java.nio.file.attribute.FileTime.fromMillis;
@@ -34,11 +36,23 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
   public static final String IS_MODIFIED = "isModified";
   public static final String OBJECT_ID = "objectId";
   public static final String FILE_MODE = "fileMode";
+  public static final String TOTAL_SIZE = "totalSize";
+  public static final String FILE_COUNT = "fileCount";
 
-  protected final Node node;
+  private final Node node;
+  private final DirectoryNode base;
+  private final GitPath path;
 
   protected GfsFileAttributeView(Node node) {
     this.node = node;
+    this.base = null;
+    this.path = null;
+  }
+
+  protected GfsFileAttributeView(DirectoryNode base, GitPath path) {
+    this.node = null;
+    this.base = base;
+    this.path = path;
   }
 
   @Nonnull
@@ -53,7 +67,33 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
   }
 
   @Nonnull
-  public abstract Map<String, Object> readAttributes(Collection<String> attributes) throws IOException;
+  static <V extends FileAttributeView> V forPath(DirectoryNode base, GitPath path, Class<V> type) throws UnsupportedOperationException {
+    if(type.isAssignableFrom(GfsFileAttributeView.Basic.class))
+      return type.cast(new GfsFileAttributeView.Basic(base, path));
+    if(type.isAssignableFrom(GfsFileAttributeView.Posix.class))
+      return type.cast(new GfsFileAttributeView.Posix(base, path));
+    if(type.isAssignableFrom(GfsFileAttributeView.Git.class))
+      return type.cast(new GfsFileAttributeView.Git(base, path));
+    throw new UnsupportedOperationException(type.getName());
+  }
+
+  @Nonnull
+  protected Node node() throws IOException {
+    if(node != null)
+      return node;
+    Node ret = GfsIO.findNode(base, path);
+    if(ret == null)
+      throw new NoSuchFileException(path.toString());
+    return ret;
+  }
+
+  @Nonnull
+  public Map<String, Object> readAttributes(Collection<String> attributes) throws IOException {
+    return readAttributes(node(), attributes);
+  }
+
+  @Nonnull
+  protected abstract Map<String, Object> readAttributes(Node node, Collection<String> attributes) throws IOException;
 
   public static class Basic extends GfsFileAttributeView implements BasicFileAttributeView {
 
@@ -65,6 +105,10 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
       super(node);
     }
 
+    protected Basic(DirectoryNode base, GitPath path) {
+      super(base, path);
+    }
+
     @Nonnull
     @Override
     public String name() {
@@ -84,7 +128,7 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
 
     @Nonnull
     @Override
-    public Map<String, Object> readAttributes(Collection<String> keys) throws IOException {
+    protected Map<String, Object> readAttributes(Node node, Collection<String> keys) throws IOException {
       Map<String, Object> result = new HashMap<>();
       for(String key : keys) {
         switch(key) {
@@ -150,6 +194,10 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
       super(node);
     }
 
+    protected Posix(DirectoryNode base, GitPath path) {
+      super(base, path);
+    }
+
     @Nonnull
     @Override
     public String name() {
@@ -164,17 +212,14 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
 
     @Nonnull
     public Set<PosixFilePermission> getPermissions() throws IOException {
-      Set<PosixFilePermission> perms = new HashSet<>(DEFAULT_PERMISSIONS);
-      if(node.isExecutableFile())
-        perms.add(OWNER_EXECUTE);
-      return unmodifiableSet(perms);
+      return getPermissions(node());
     }
 
 
     @Override
     public void setPermissions(Set<PosixFilePermission> perms) throws IOException {
       FileMode mode = perms.contains(OWNER_EXECUTE) ? EXECUTABLE_FILE : REGULAR_FILE;
-      node.setMode(mode);
+      node().setMode(mode);
     }
 
     @Override
@@ -195,16 +240,16 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
 
     @Nonnull
     @Override
-    public Map<String, Object> readAttributes(Collection<String> keys) throws IOException {
+    protected Map<String, Object> readAttributes(Node node, Collection<String> keys) throws IOException {
       Set<String> basicKeys = new HashSet<>(keys);
       basicKeys.retainAll(Basic.BASIC_KEYS);
-      Map<String, Object> result = new HashMap<>(super.readAttributes(basicKeys));
+      Map<String, Object> result = new HashMap<>(super.readAttributes(node, basicKeys));
       Set<String> remainKeys = new HashSet<>(keys);
       remainKeys.removeAll(result.keySet());
       for(String key : remainKeys) {
         switch(key) {
           case PERMISSIONS_NAME:
-            result.put(key, getPermissions());
+            result.put(key, getPermissions(node));
             break;
           case OWNER_NAME:
             result.put(key, getOwner());
@@ -219,6 +264,14 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
       return unmodifiableMap(result);
     }
 
+    @Nonnull
+    private static Set<PosixFilePermission> getPermissions(Node node) throws IOException {
+      Set<PosixFilePermission> perms = new HashSet<>(DEFAULT_PERMISSIONS);
+      if(node.isExecutableFile())
+        perms.add(OWNER_EXECUTE);
+      return unmodifiableSet(perms);
+    }
+
     @Nonnull
     private static Collection<PosixFilePermission> defaultPermissions() {
       return unmodifiableCollection(asList(OWNER_READ, OWNER_WRITE));
@@ -243,6 +296,10 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
       super(node);
     }
 
+    protected Git(DirectoryNode base, GitPath path) {
+      super(base, path);
+    }
+
     @Nonnull
     @Override
     public String name() {
@@ -250,8 +307,8 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
     }
 
     @Override
-    public void setFileMode(FileMode mode) {
-      node.setMode(mode);
+    public void setFileMode(FileMode mode) throws IOException {
+      node().setMode(mode);
     }
 
     @Nonnull
@@ -262,10 +319,10 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
 
     @Nonnull
     @Override
-    public Map<String, Object> readAttributes(Collection<String> keys) throws IOException {
+    protected Map<String, Object> readAttributes(Node node, Collection<String> keys) throws IOException {
       Set<String> posixKeys = new HashSet<>(keys);
       posixKeys.retainAll(Posix.POSIX_KEYS);
-      Map<String, Object> result = new HashMap<>(super.readAttributes(posixKeys));
+      Map<String, Object> result = new HashMap<>(super.readAttributes(node, posixKeys));
       Set<String> remainKeys = new HashSet<>(keys);
       remainKeys.removeAll(result.keySet());
       for(String key : remainKeys) {
@@ -282,6 +339,12 @@ public abstract class GfsFileAttributeView implements FileAttributeView {
           case FILE_MODE:
             result.put(key, node.getMode());
             break;
+          case TOTAL_SIZE:
+            result.put(key, node.getStats().getTotalSize());
+            break;
+          case FILE_COUNT:
+            result.put(key, node.getStats().getFileCount());
+            break;
           default:
             throw new UnsupportedOperationException(key);
         }
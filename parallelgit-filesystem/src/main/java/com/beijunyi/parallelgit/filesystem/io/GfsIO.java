@@ -6,6 +6,7 @@ import java.nio.file.*;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.FileAttributeView;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -13,6 +14,7 @@ import javax.annotation.Nullable;
 import com.beijunyi.parallelgit.filesystem.GitPath;
 import com.beijunyi.parallelgit.filesystem.utils.FileAttributeReader;
 
+import static com.beijunyi.parallelgit.filesystem.GitFileSystemProvider.SUPPORTED_OPEN_OPTIONS;
 import static com.beijunyi.parallelgit.filesystem.io.FileNode.newFile;
 import static java.nio.file.AccessMode.EXECUTE;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
@@ -28,10 +30,39 @@ public final class GfsIO {
     return parent;
   }
 
+  @Nonnull
+  private static DirectoryNode getRoot(GitPath path) {
+    return path.getFileStore().getRoot();
+  }
+
+  @Nullable
+  static Node getCachedNode(GitPath path) {
+    CachedNode cached = path.getCachedNode();
+    if(cached == null)
+      return null;
+    Node ret = cached.get();
+    if(ret == null)
+      path.setCachedNode(null);
+    return ret;
+  }
+
+  static void cacheNode(GitPath path, Node node, long epoch) {
+    path.setCachedNode(new CachedNode(node, epoch));
+  }
+
   @Nullable
   private static Node findNode(GitPath path) throws IOException {
     if(!path.isAbsolute()) throw new IllegalArgumentException(path.toString());
-    Node current = path.getFileStore().getRoot();
+    return findNode(getRoot(path), path);
+  }
+
+  @Nullable
+  static Node findNode(DirectoryNode base, GitPath path) throws IOException {
+    if(path.isAbsolute()) {
+      Node cached = getCachedNode(path);
+      if(cached != null) return cached;
+    }
+    Node current = path.isAbsolute() ? getRoot(path) : base;
     for(int i = 0; i < path.getNameCount(); i++) {
       GitPath name = path.getName(i);
       if(current instanceof DirectoryNode)
@@ -44,7 +75,12 @@ public final class GfsIO {
 
   @Nonnull
   private static Node getNode(GitPath path) throws IOException {
-    Node node = findNode(path);
+    return getNode(getRoot(path), path);
+  }
+
+  @Nonnull
+  static Node getNode(DirectoryNode base, GitPath path) throws IOException {
+    Node node = findNode(base, path);
     if(node == null) throw new NoSuchFileException(path.toString());
     return node;
   }
@@ -68,10 +104,26 @@ public final class GfsIO {
   }
 
   @Nonnull
-  private static DirectoryNode findDirectory(GitPath dir) throws IOException {
+  static DirectoryNode findDirectory(GitPath dir) throws IOException {
     return asDirectory(findNode(dir), dir);
   }
 
+  @Nonnull
+  static DirectoryNode findDirectory(DirectoryNode base, GitPath dir) throws IOException {
+    return asDirectory(findNode(base, dir), dir);
+  }
+
+  @Nonnull
+  private static DirectoryNode findParentDirectory(DirectoryNode base, GitPath child) throws IOException {
+    if(child.isRoot()) throw new IllegalArgumentException(child.toString());
+    GitPath parent = child.getParent();
+    if(parent == null) {
+      if(child.isAbsolute() || child.getNameCount() != 1) throw new IllegalStateException(child.toString());
+      return base;
+    }
+    return findDirectory(base, parent);
+  }
+
   @Nonnull
   private static String getFileName(GitPath path) throws IOException {
     GitPath name = path.getFileName();
@@ -79,32 +131,52 @@ public final class GfsIO {
     return name.toString();
   }
 
+  @Nonnull
+  private static Set<OpenOption> amendOptions(Set<? extends OpenOption> options) {
+    Set<OpenOption> ret = new HashSet<>();
+    for(OpenOption option : options) {
+      if(!SUPPORTED_OPEN_OPTIONS.contains(option)) throw new UnsupportedOperationException(option.toString());
+      if(option == APPEND) ret.add(WRITE);
+      ret.add(option);
+    }
+    if(!ret.contains(WRITE)) ret.add(READ);
+    return ret;
+  }
+
   @Nonnull
   public static SeekableByteChannel newByteChannel(GitPath file, Set<? extends OpenOption> options, Collection<? extends FileAttribute> attrs) throws IOException {
+    return newByteChannel(getRoot(file), file, options, attrs);
+  }
+
+  @Nonnull
+  static SeekableByteChannel newByteChannel(DirectoryNode base, GitPath file, Set<? extends OpenOption> options, Collection<? extends FileAttribute> attrs) throws IOException {
     if(file.isRoot()) throw new AccessDeniedException(file.toString());
+    Set<OpenOption> amended = amendOptions(options);
+    if(amended.contains(WRITE) && base.getObjectService().isReadOnly()) throw new ReadOnlyFileSystemException();
     FileNode node;
-    if(options.contains(CREATE) || options.contains(CREATE_NEW)) {
-      DirectoryNode parent = findDirectory(getParent(file));
+    if(amended.contains(CREATE) || amended.contains(CREATE_NEW)) {
+      DirectoryNode parent = findParentDirectory(base, file);
       String name = getFileName(file);
-      if(options.contains(CREATE_NEW) || !parent.hasChild(name)) {
+      if(amended.contains(CREATE_NEW) || !parent.hasChild(name)) {
         node = newFile(FileAttributeReader.read(attrs).isExecutable(), parent);
         if(!parent.addChild(name, node, false)) throw new FileAlreadyExistsException(file.toString());
       } else {
         node = asFile(parent.getChild(name), file);
       }
     } else {
-      node = findFile(file);
+      node = asFile(findNode(base, file), file);
     }
-    if (options.contains(WRITE)) {
-      return new GfsSeekableByteChannel(node, options);
+    if (amended.contains(WRITE)) {
+      return new GfsSeekableByteChannel(node, amended);
     } else {
-      return new GfsSeekableReadOnlyByteChannel(node, options);
+      return new GfsSeekableReadOnlyByteChannel(node, amended);
     }
   }
 
   @Nonnull
   public static GfsDirectoryStream newDirectoryStream(GitPath dir, @Nullable DirectoryStream.Filter<? super Path> filter) throws IOException {
-    return new GfsDirectoryStream(findDirectory(dir), dir, filter);
+    long epoch = getRoot(dir).getObjectService().getDetachEpoch();
+    return new GfsDirectoryStream(findDirectory(dir), dir, filter, epoch);
   }
 
   public static void createDirectory(GitPath dir) throws IOException {
@@ -142,6 +214,38 @@ public final class GfsIO {
       throw new NoSuchFileException(file.toString());
   }
 
+  static void deleteFile(DirectoryNode base, GitPath file) throws IOException {
+    if(file.isRoot()) throw new AccessDeniedException(file.toString());
+    DirectoryNode parent = findParentDirectory(base, file);
+    Node node = parent.getChild(getFileName(file));
+    if(node == null) throw new NoSuchFileException(file.toString());
+    if(node.isDirectory()) throw new FileSystemException(file.toString(), null, "Is a directory");
+    parent.removeChild(getFileName(file));
+  }
+
+  static void deleteDirectory(DirectoryNode base, GitPath dir) throws IOException {
+    if(dir.isRoot()) throw new AccessDeniedException(dir.toString());
+    DirectoryNode parent = findParentDirectory(base, dir);
+    Node node = parent.getChild(getFileName(dir));
+    if(node == null) throw new NoSuchFileException(dir.toString());
+    DirectoryNode target = asDirectory(node, dir);
+    if(!target.listChildren().isEmpty()) throw new DirectoryNotEmptyException(dir.toString());
+    parent.removeChild(getFileName(dir));
+  }
+
+  static void move(DirectoryNode sourceBase, GitPath source, DirectoryNode targetBase, GitPath target) throws IOException {
+    if(source.isRoot()) throw new AccessDeniedException(source.toString());
+    if(target.isRoot()) throw new AccessDeniedException(target.toString());
+    DirectoryNode sourceParent = findParentDirectory(sourceBase, source);
+    Node sourceNode = sourceParent.getChild(getFileName(source));
+    if(sourceNode == null) throw new NoSuchFileException(source.toString());
+    DirectoryNode targetParent = findParentDirectory(targetBase, target);
+    if(sourceParent == targetParent && getFileName(source).equals(getFileName(target)))
+      return;
+    targetParent.addChild(getFileName(target), sourceNode.clone(targetParent), true);
+    sourceParent.removeChild(getFileName(source));
+  }
+
   public static void checkAccess(GitPath path, Set<AccessMode> modes) throws IOException {
     Node node = getNode(path);
     if(modes.contains(EXECUTE) && !node.isExecutableFile()) throw new AccessDeniedException(path.toString());
@@ -149,7 +253,12 @@ public final class GfsIO {
 
   @Nullable
   public static <V extends FileAttributeView> V getFileAttributeView(GitPath path, Class<V> type) throws IOException, UnsupportedOperationException {
-    Node node = findNode(path);
+    return getFileAttributeView(getRoot(path), path, type);
+  }
+
+  @Nullable
+  static <V extends FileAttributeView> V getFileAttributeView(DirectoryNode base, GitPath path, Class<V> type) throws IOException, UnsupportedOperationException {
+    Node node = findNode(base, path);
     return node != null ? GfsFileAttributeView.forNode(node, type) : null;
   }
 
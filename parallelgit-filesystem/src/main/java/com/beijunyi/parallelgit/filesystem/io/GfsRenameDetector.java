@@ -0,0 +1,223 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GfsObjectService;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.ParallelTasks;
+import com.beijunyi.parallelgit.utils.io.TreeChange;
+import org.eclipse.jgit.diff.SimilarityIndex;
+import org.eclipse.jgit.lib.ObjectId;
+
+import static java.util.Collections.unmodifiableList;
+import static org.eclipse.jgit.lib.FileMode.*;
+
+public class GfsRenameDetector {
+
+  private static final int MAX_SCORE = 100;
+
+  private final GfsObjectService objService;
+
+  private int renameScore = 60;
+  private int renameLimit = 400;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private boolean detectCopies = false;
+
+  public GfsRenameDetector(GfsObjectService objService) {
+    this.objService = objService;
+  }
+
+  @Nonnull
+  public GfsRenameDetector renameScore(int renameScore) {
+    if(renameScore < 0 || renameScore > MAX_SCORE)
+      throw new IllegalArgumentException("renameScore: " + renameScore);
+    this.renameScore = renameScore;
+    return this;
+  }
+
+  @Nonnull
+  public GfsRenameDetector renameLimit(int renameLimit) {
+    this.renameLimit = renameLimit;
+    return this;
+  }
+
+  @Nonnull
+  public GfsRenameDetector parallelism(int parallelism) {
+    if(parallelism < 1)
+      throw new IllegalArgumentException("parallelism: " + parallelism);
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  @Nonnull
+  public GfsRenameDetector detectCopies(boolean detectCopies) {
+    this.detectCopies = detectCopies;
+    return this;
+  }
+
+  @Nonnull
+  public List<FileRename> detect(Collection<? extends TreeChange> changes) throws IOException {
+    List<TreeChange> added = new ArrayList<>();
+    List<TreeChange> sources = new ArrayList<>();
+    for(TreeChange change : changes) {
+      if(change.isAdded() && isFile(change.getNewEntry()))
+        added.add(change);
+      else if(change.isDeleted() && isFile(change.getOldEntry()))
+        sources.add(change);
+      else if(detectCopies && change.isModified() && isFile(change.getOldEntry()))
+        sources.add(change);
+    }
+    List<FileRename> ret = new ArrayList<>();
+    Set<TreeChange> renamed = new HashSet<>();
+    matchExact(added, sources, renamed, ret);
+    if(!added.isEmpty() && !sources.isEmpty() && Math.max(added.size(), sources.size()) <= renameLimit)
+      matchInexact(added, sources, renamed, ret);
+    Collections.sort(ret, new Comparator<FileRename>() {
+      @Override
+      public int compare(FileRename left, FileRename right) {
+        return left.getNewPath().compareTo(right.getNewPath());
+      }
+    });
+    return unmodifiableList(ret);
+  }
+
+  private void matchExact(List<TreeChange> added, List<TreeChange> sources, Set<TreeChange> renamed, List<FileRename> result) {
+    Map<ObjectId, List<TreeChange>> sourcesById = new HashMap<>();
+    for(TreeChange source : sources) {
+      ObjectId id = source.getOldEntry().getId();
+      List<TreeChange> group = sourcesById.get(id);
+      if(group == null) {
+        group = new ArrayList<>();
+        sourcesById.put(id, group);
+      }
+      group.add(source);
+    }
+    Iterator<TreeChange> it = added.iterator();
+    while(it.hasNext()) {
+      TreeChange add = it.next();
+      List<TreeChange> group = sourcesById.get(add.getNewEntry().getId());
+      if(group == null)
+        continue;
+      TreeChange source = pickSource(group, renamed);
+      if(source == null)
+        continue;
+      result.add(newRename(source, add, MAX_SCORE, renamed));
+      it.remove();
+    }
+  }
+
+  @Nullable
+  private TreeChange pickSource(List<TreeChange> candidates, Set<TreeChange> renamed) {
+    for(TreeChange candidate : candidates)
+      if(candidate.isDeleted() && !renamed.contains(candidate))
+        return candidate;
+    return detectCopies ? candidates.get(0) : null;
+  }
+
+  private void matchInexact(List<TreeChange> added, List<TreeChange> sources, Set<TreeChange> renamed, List<FileRename> result) throws IOException {
+    List<Match> matches = scoreAll(added, sources);
+    Collections.sort(matches);
+    Set<TreeChange> matched = new HashSet<>();
+    for(Match match : matches) {
+      TreeChange add = added.get(match.add);
+      TreeChange source = sources.get(match.source);
+      if(matched.contains(add))
+        continue;
+      if(!detectCopies && (!source.isDeleted() || renamed.contains(source)))
+        continue;
+      result.add(newRename(source, add, match.score, renamed));
+      matched.add(add);
+    }
+  }
+
+  @Nonnull
+  private FileRename newRename(TreeChange source, TreeChange add, int score, Set<TreeChange> renamed) {
+    boolean copy = !source.isDeleted() || !renamed.add(source);
+    return new FileRename(source.getPath(), add.getPath(), source.getOldEntry(), add.getNewEntry(), score, copy);
+  }
+
+  @Nonnull
+  private List<Match> scoreAll(List<TreeChange> added, List<TreeChange> sources) throws IOException {
+    Queue<Integer> rows = new ConcurrentLinkedQueue<>();
+    for(int i = 0; i < added.size(); i++)
+      rows.add(i);
+    List<Match> ret = Collections.synchronizedList(new ArrayList<Match>());
+    int workers = Math.max(1, Math.min(parallelism, added.size()));
+    List<ScoreWorker> tasks = new ArrayList<>(workers);
+    for(int i = 0; i < workers; i++)
+      tasks.add(new ScoreWorker(rows, added, sources, ret));
+    ParallelTasks.runAll(tasks);
+    return ret;
+  }
+
+  private static boolean isFile(GitFileEntry entry) {
+    return REGULAR_FILE.equals(entry.getMode()) || EXECUTABLE_FILE.equals(entry.getMode()) || SYMLINK.equals(entry.getMode());
+  }
+
+  private class ScoreWorker implements Callable<Void> {
+
+    private final Queue<Integer> rows;
+    private final List<TreeChange> added;
+    private final List<TreeChange> sources;
+    private final List<Match> result;
+
+    private ScoreWorker(Queue<Integer> rows, List<TreeChange> added, List<TreeChange> sources, List<Match> result) {
+      this.rows = rows;
+      this.added = added;
+      this.sources = sources;
+      this.result = result;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      Integer row;
+      while((row = rows.poll()) != null)
+        scoreRow(row);
+      return null;
+    }
+
+    private void scoreRow(int row) throws IOException {
+      SimilarityIndex addIndex = objService.readSimilarityIndex(added.get(row).getNewEntry().getId());
+      if(addIndex == null)
+        return;
+      for(int column = 0; column < sources.size(); column++) {
+        SimilarityIndex sourceIndex = objService.readSimilarityIndex(sources.get(column).getOldEntry().getId());
+        if(sourceIndex == null)
+          continue;
+        int score = sourceIndex.score(addIndex, MAX_SCORE);
+        if(score >= renameScore)
+          result.add(new Match(row, column, score));
+      }
+    }
+
+  }
+
+  private static class Match implements Comparable<Match> {
+
+    private final int add;
+    private final int source;
+    private final int score;
+
+    private Match(int add, int source, int score) {
+      this.add = add;
+      this.source = source;
+      this.score = score;
+    }
+
+    @Override
+    public int compareTo(Match that) {
+      if(score != that.score)
+        return Integer.compare(that.score, score);
+      if(add != that.add)
+        return Integer.compare(add, that.add);
+      return Integer.compare(source, that.source);
+    }
+
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.util.*;
+import javax.annotation.Nonnull;
+
+import com.beijunyi.parallelgit.filesystem.GfsObjectService;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import org.eclipse.jgit.lib.ObjectId;
+
+import static com.beijunyi.parallelgit.filesystem.io.FileStatus.newStatus;
+import static com.beijunyi.parallelgit.utils.io.GitFileEntry.*;
+import static java.util.Collections.unmodifiableSortedMap;
+import static org.eclipse.jgit.lib.ObjectId.zeroId;
+
+public class GfsStatusCollector {
+
+  private final GfsObjectService objService;
+  private final boolean persist;
+  private final SortedMap<String, FileStatus> changes = new TreeMap<>();
+
+  private GfsStatusCollector(GfsObjectService objService, boolean persist) {
+    this.objService = objService;
+    this.persist = persist;
+  }
+
+  @Nonnull
+  public static SortedMap<String, FileStatus> collect(DirectoryNode root) throws IOException {
+    return collect(root, false);
+  }
+
+  @Nonnull
+  public static SortedMap<String, FileStatus> collect(DirectoryNode root, boolean persist) throws IOException {
+    GfsStatusCollector collector = new GfsStatusCollector(root.getObjectService(), persist);
+    collector.walkDirectory("", root.getOrigin(), root);
+    return unmodifiableSortedMap(collector.changes);
+  }
+
+  private void walkDirectory(String path, GitFileEntry oldEntry, DirectoryNode dir) throws IOException {
+    if(dir.getOrigin().equals(oldEntry) && !dir.isModified())
+      return;
+    Map<String, Node> children = dir.data;
+    if(children == null) {
+      compareEntries(path, oldEntry, newTreeEntry(dir.id));
+      return;
+    }
+    Map<String, GitFileEntry> oldChildren = readTree(oldEntry);
+    SortedSet<String> names = new TreeSet<>(oldChildren.keySet());
+    names.addAll(children.keySet());
+    for(String name : names) {
+      GitFileEntry oldChild = oldChildren.containsKey(name) ? oldChildren.get(name) : missingEntry();
+      Node node = children.get(name);
+      if(node == null)
+        compareEntries(path + "/" + name, oldChild, missingEntry());
+      else
+        compareNode(path + "/" + name, oldChild, node);
+    }
+  }
+
+  private void compareNode(String path, GitFileEntry oldEntry, Node node) throws IOException {
+    if(node instanceof DirectoryNode) {
+      if(!oldEntry.isSubtree()) {
+        compareEntries(path, oldEntry, missingEntry());
+        oldEntry = missingEntry();
+      }
+      walkDirectory(path, oldEntry, (DirectoryNode) node);
+    } else {
+      GitFileEntry newEntry = newEntry(node.getObjectId(false), node.getMode());
+      if(persist && !oldEntry.equals(newEntry))
+        node.getObjectId(true);
+      compareEntries(path, oldEntry, newEntry);
+    }
+  }
+
+  private void compareEntries(String path, GitFileEntry oldEntry, GitFileEntry newEntry) throws IOException {
+    if(oldEntry.equals(newEntry))
+      return;
+    if(oldEntry.isSubtree() || newEntry.isSubtree()) {
+      compareTrees(path, oldEntry.isSubtree() ? oldEntry : missingEntry(), newEntry.isSubtree() ? newEntry : missingEntry());
+      oldEntry = oldEntry.isSubtree() ? missingEntry() : oldEntry;
+      newEntry = newEntry.isSubtree() ? missingEntry() : newEntry;
+    }
+    if(!oldEntry.equals(newEntry))
+      changes.put(path, newStatus(path, oldEntry, newEntry));
+  }
+
+  private void compareTrees(String path, GitFileEntry oldTree, GitFileEntry newTree) throws IOException {
+    Map<String, GitFileEntry> oldChildren = readTree(oldTree);
+    Map<String, GitFileEntry> newChildren = readTree(newTree);
+    SortedSet<String> names = new TreeSet<>(oldChildren.keySet());
+    names.addAll(newChildren.keySet());
+    for(String name : names) {
+      GitFileEntry oldChild = oldChildren.containsKey(name) ? oldChildren.get(name) : missingEntry();
+      GitFileEntry newChild = newChildren.containsKey(name) ? newChildren.get(name) : missingEntry();
+      compareEntries(path + "/" + name, oldChild, newChild);
+    }
+  }
+
+  @Nonnull
+  private Map<String, GitFileEntry> readTree(GitFileEntry entry) throws IOException {
+    ObjectId id = entry.getId();
+    if(!entry.isSubtree() || zeroId().equals(id))
+      return Collections.emptyMap();
+    return objService.readTree(id).getData();
+  }
+
+}
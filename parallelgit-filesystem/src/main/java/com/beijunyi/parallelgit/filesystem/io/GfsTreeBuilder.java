@@ -0,0 +1,86 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GfsObjectService;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.TreeChange;
+import com.beijunyi.parallelgit.utils.io.TreeSnapshot;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import static com.beijunyi.parallelgit.utils.io.GitFileEntry.*;
+
+public final class GfsTreeBuilder {
+
+  @Nonnull
+  public static ObjectId build(@Nullable AnyObjectId baseTree, Collection<? extends TreeChange> changes, GfsObjectService objService) throws IOException {
+    ChangeEntry root = new ChangeEntry();
+    for(TreeChange change : changes)
+      root.add(change.getPath(), change.getNewEntry());
+    GitFileEntry base = baseTree != null ? newTreeEntry(baseTree.copy()) : missingEntry();
+    ObjectId ret = build(base, root, objService);
+    if(ret == null)
+      ret = objService.write(TreeSnapshot.capture(new TreeMap<String, GitFileEntry>()));
+    objService.flush();
+    return ret;
+  }
+
+  @Nullable
+  private static ObjectId build(GitFileEntry base, ChangeEntry changes, GfsObjectService objService) throws IOException {
+    SortedMap<String, GitFileEntry> entries = new TreeMap<>();
+    if(base.isSubtree())
+      entries.putAll(objService.readTree(base.getId()).getData());
+    for(Map.Entry<String, ChangeEntry> child : changes.children.entrySet()) {
+      String name = child.getKey();
+      ChangeEntry entry = child.getValue();
+      if(entry.entry != null) {
+        if(entry.entry.isMissing())
+          entries.remove(name);
+        else
+          entries.put(name, entry.entry);
+      }
+      if(!entry.children.isEmpty() && !replacesSubtree(entry.entry)) {
+        GitFileEntry current = entries.containsKey(name) ? entries.get(name) : missingEntry();
+        ObjectId subtree = build(current.isSubtree() ? current : missingEntry(), entry, objService);
+        if(subtree != null)
+          entries.put(name, newTreeEntry(subtree));
+        else
+          entries.remove(name);
+      }
+    }
+    if(entries.isEmpty())
+      return null;
+    return objService.write(TreeSnapshot.capture(entries));
+  }
+
+  private static boolean replacesSubtree(@Nullable GitFileEntry entry) {
+    return entry != null && !entry.isMissing() && !entry.isSubtree();
+  }
+
+  private static class ChangeEntry {
+
+    private final SortedMap<String, ChangeEntry> children = new TreeMap<>();
+    private GitFileEntry entry;
+
+    private void add(String path, GitFileEntry newEntry) {
+      ChangeEntry current = this;
+      for(String name : path.split("/")) {
+        if(name.isEmpty())
+          continue;
+        ChangeEntry child = current.children.get(name);
+        if(child == null) {
+          child = new ChangeEntry();
+          current.children.put(name, child);
+        }
+        current = child;
+      }
+      current.entry = newEntry;
+    }
+
+  }
+
+}
@@ -0,0 +1,45 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.nio.file.WatchEvent;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public class GfsWatchEvent<T> implements WatchEvent<T> {
+
+  private final Kind<T> kind;
+  private final T context;
+  private volatile int count = 1;
+
+  private GfsWatchEvent(Kind<T> kind, @Nullable T context) {
+    this.kind = kind;
+    this.context = context;
+  }
+
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  static GfsWatchEvent<?> newEvent(Kind<?> kind, @Nullable Object context) {
+    return new GfsWatchEvent<>((Kind<Object>) kind, context);
+  }
+
+  @Nonnull
+  @Override
+  public Kind<T> kind() {
+    return kind;
+  }
+
+  @Override
+  public int count() {
+    return count;
+  }
+
+  @Nullable
+  @Override
+  public T context() {
+    return context;
+  }
+
+  void increment() {
+    count++;
+  }
+
+}
@@ -0,0 +1,124 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GitPath;
+
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+public class GfsWatchKey implements WatchKey {
+
+  private static final int MAX_EVENTS = 512;
+
+  private final GfsWatchService service;
+  private final GitPath path;
+  private final List<GfsWatchEvent<?>> events = new ArrayList<>();
+
+  private volatile DirectoryNode dir;
+  private volatile Set<WatchEvent.Kind<?>> kinds;
+  private volatile boolean valid = true;
+  private boolean signalled = false;
+
+  GfsWatchKey(GfsWatchService service, DirectoryNode dir, GitPath path, Collection<WatchEvent.Kind<?>> kinds) {
+    this.service = service;
+    this.dir = dir;
+    this.path = path;
+    setKinds(kinds);
+  }
+
+  @Override
+  public boolean isValid() {
+    return valid;
+  }
+
+  @Nonnull
+  @Override
+  public synchronized List<WatchEvent<?>> pollEvents() {
+    List<WatchEvent<?>> ret = new ArrayList<WatchEvent<?>>(events);
+    events.clear();
+    return unmodifiableList(ret);
+  }
+
+  @Override
+  public synchronized boolean reset() {
+    if(!valid)
+      return false;
+    if(signalled) {
+      if(events.isEmpty())
+        signalled = false;
+      else
+        service.enqueue(this);
+    }
+    return true;
+  }
+
+  @Override
+  public void cancel() {
+    if(valid) {
+      valid = false;
+      dir.removeWatchKey(this);
+      service.unregister(this);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public GitPath watchable() {
+    return path;
+  }
+
+  void setDirectory(DirectoryNode dir) {
+    this.dir = dir;
+  }
+
+  void setKinds(Collection<WatchEvent.Kind<?>> kinds) {
+    this.kinds = unmodifiableSet(new HashSet<>(kinds));
+  }
+
+  void signal(WatchEvent.Kind<?> kind, @Nullable String name) {
+    if(!valid || kind != OVERFLOW && !kinds.contains(kind))
+      return;
+    Path context = name != null ? path.getFileSystem().getPath(name) : null;
+    synchronized(this) {
+      if(!events.isEmpty()) {
+        GfsWatchEvent<?> last = events.get(events.size() - 1);
+        if(last.kind() == OVERFLOW || last.kind() == kind && Objects.equals(last.context(), context)) {
+          last.increment();
+          signalled();
+          return;
+        }
+      }
+      if(events.size() >= MAX_EVENTS) {
+        kind = OVERFLOW;
+        context = null;
+      }
+      events.add(GfsWatchEvent.newEvent(kind, context));
+      signalled();
+    }
+  }
+
+  void invalidate() {
+    if(valid) {
+      valid = false;
+      service.unregister(this);
+      synchronized(this) {
+        signalled();
+      }
+    }
+  }
+
+  private void signalled() {
+    if(!signalled) {
+      signalled = true;
+      service.enqueue(this);
+    }
+  }
+
+}
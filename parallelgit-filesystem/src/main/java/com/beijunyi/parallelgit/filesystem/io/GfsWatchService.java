@@ -0,0 +1,145 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.GitPath;
+
+import static java.util.Arrays.asList;
+
+public class GfsWatchService implements WatchService {
+
+  private final GitFileSystem gfs;
+  private final LinkedBlockingDeque<WatchKey> signalledKeys = new LinkedBlockingDeque<>();
+  private final Map<GitPath, GfsWatchKey> keys = new HashMap<>();
+  private final WatchKey closeKey = new CloseKey();
+
+  private volatile boolean closed = false;
+
+  public GfsWatchService(GitFileSystem gfs) {
+    this.gfs = gfs;
+  }
+
+  @Nonnull
+  public GfsWatchKey register(GitPath path, WatchEvent.Kind<?>... kinds) throws IOException {
+    checkOpen();
+    if(!gfs.equals(path.getFileSystem()))
+      throw new ProviderMismatchException();
+    GitPath dir = path.toRealPath();
+    DirectoryNode node = GfsIO.findDirectory(dir);
+    synchronized(keys) {
+      checkOpen();
+      GfsWatchKey ret = keys.get(dir);
+      if(ret != null && ret.isValid()) {
+        ret.setKinds(asList(kinds));
+      } else {
+        ret = new GfsWatchKey(this, node, dir, asList(kinds));
+        keys.put(dir, ret);
+        node.addWatchKey(ret);
+      }
+      return ret;
+    }
+  }
+
+  @Nullable
+  @Override
+  public WatchKey poll() {
+    checkOpen();
+    return checkKey(signalledKeys.poll());
+  }
+
+  @Nullable
+  @Override
+  public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+    checkOpen();
+    return checkKey(signalledKeys.poll(timeout, unit));
+  }
+
+  @Nonnull
+  @Override
+  public WatchKey take() throws InterruptedException {
+    checkOpen();
+    WatchKey ret = checkKey(signalledKeys.take());
+    assert ret != null;
+    return ret;
+  }
+
+  @Override
+  public void close() {
+    List<GfsWatchKey> cancelled;
+    synchronized(keys) {
+      if(closed)
+        return;
+      closed = true;
+      cancelled = new ArrayList<>(keys.values());
+      keys.clear();
+    }
+    for(GfsWatchKey key : cancelled)
+      key.cancel();
+    signalledKeys.clear();
+    signalledKeys.offer(closeKey);
+  }
+
+  void enqueue(GfsWatchKey key) {
+    if(!closed)
+      signalledKeys.offer(key);
+  }
+
+  void unregister(GfsWatchKey key) {
+    synchronized(keys) {
+      if(keys.get(key.watchable()) == key)
+        keys.remove(key.watchable());
+    }
+  }
+
+  @Nullable
+  private WatchKey checkKey(@Nullable WatchKey key) {
+    if(key == closeKey) {
+      signalledKeys.offer(closeKey);
+      throw new ClosedWatchServiceException();
+    }
+    return key;
+  }
+
+  private void checkOpen() {
+    if(closed)
+      throw new ClosedWatchServiceException();
+  }
+
+  private static class CloseKey implements WatchKey {
+
+    @Override
+    public boolean isValid() {
+      return false;
+    }
+
+    @Nonnull
+    @Override
+    public List<WatchEvent<?>> pollEvents() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean reset() {
+      return false;
+    }
+
+    @Override
+    public void cancel() {
+    }
+
+    @Nullable
+    @Override
+    public Watchable watchable() {
+      return null;
+    }
+
+  }
+
+}
@@ -14,6 +14,6 @@ public interface GitFileAttributeView extends PosixFileAttributeView {
   @Nonnull
   GitFileAttributes readAttributes() throws IOException;
 
-  void setFileMode(FileMode mode);
+  void setFileMode(FileMode mode) throws IOException;
 
 }
@@ -1,6 +1,8 @@
 package com.beijunyi.parallelgit.filesystem.io;
 
 import java.io.IOException;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -18,14 +20,18 @@ import static org.eclipse.jgit.lib.ObjectId.zeroId;
 
 public abstract class Node<Snapshot extends ObjectSnapshot, Data> {
 
+  private static final AtomicIntegerFieldUpdater<Node> MODIFIED_STAMP = AtomicIntegerFieldUpdater.newUpdater(Node.class, "modifiedStamp");
+  private static final int MODIFIED_KNOWN = 1;
+  private static final int MODIFIED_TRUE = 2;
+
   protected final GfsObjectService objService;
 
   protected volatile GitFileEntry origin = missingEntry();
   protected volatile DirectoryNode parent;
-  protected volatile Snapshot snapshot;
   protected volatile ObjectId id;
   protected volatile FileMode mode;
   protected volatile Data data;
+  private volatile int modifiedStamp;
 
   protected Node(FileMode mode, GfsObjectService objService) {
     this.objService = objService;
@@ -98,6 +104,8 @@ public abstract class Node<Snapshot extends ObjectSnapshot, Data> {
 
   public void updateOrigin(GitFileEntry entry) throws IOException {
     origin = entry;
+    invalidateModified();
+    invalidateParentModified();
   }
 
   @Nonnull
@@ -106,9 +114,12 @@ public abstract class Node<Snapshot extends ObjectSnapshot, Data> {
   }
 
   public void setMode(FileMode mode) {
+    checkWritable();
     checkFileMode(mode);
     this.mode = mode;
+    invalidateModified();
     invalidateParentCache();
+    notifyParentWatchers();
   }
 
   public boolean isNew() throws IOException {
@@ -116,8 +127,23 @@ public abstract class Node<Snapshot extends ObjectSnapshot, Data> {
   }
 
   public boolean isModified() throws IOException {
-    ObjectId id = getObjectId(false);
-    return !origin.getId().equals(id) || !origin.getMode().equals(mode);
+    int stamp = modifiedStamp;
+    if((stamp & MODIFIED_KNOWN) != 0)
+      return (stamp & MODIFIED_TRUE) != 0;
+    boolean ret = !origin.getMode().equals(mode) || isContentModified();
+    MODIFIED_STAMP.compareAndSet(this, stamp, stamp | MODIFIED_KNOWN | (ret ? MODIFIED_TRUE : 0));
+    return ret;
+  }
+
+  protected void invalidateModified() {
+    int stamp;
+    do {
+      stamp = modifiedStamp;
+    } while(!MODIFIED_STAMP.compareAndSet(this, stamp, (stamp | MODIFIED_KNOWN | MODIFIED_TRUE) + 1));
+  }
+
+  protected boolean isContentModified() throws IOException {
+    return !origin.getId().equals(getObjectId(false));
   }
 
   @Nonnull
@@ -135,10 +161,7 @@ public abstract class Node<Snapshot extends ObjectSnapshot, Data> {
 
   @Nonnull
   protected Snapshot loadSnapshot(ObjectId id) throws IOException {
-    Snapshot ret = objService.read(id, getSnapshotType());
-    if(origin.getId().equals(id))
-      snapshot = ret;
-    return ret;
+    return objService.read(id, getSnapshotType());
   }
 
   @Nullable
@@ -159,6 +182,7 @@ public abstract class Node<Snapshot extends ObjectSnapshot, Data> {
   }
 
   public void reset() {
+    checkWritable();
     if(origin.isMissing()) throw new IllegalStateException();
     reset(origin);
   }
@@ -168,24 +192,49 @@ public abstract class Node<Snapshot extends ObjectSnapshot, Data> {
     this.id = entry.getId();
     this.mode = entry.getMode();
     this.data = null;
+    invalidateModified();
     invalidateParentCache();
+    notifyParentWatchers();
   }
 
   protected void invalidateParentCache() {
     if(parent != null) {
       parent.id = null;
+      parent.invalidateModified();
       parent.invalidateParentCache();
     }
   }
 
+  protected void invalidateParentModified() {
+    DirectoryNode current = parent;
+    while(current != null) {
+      current.invalidateModified();
+      current = current.parent;
+    }
+  }
+
+  protected void notifyParentWatchers() {
+    DirectoryNode parent = this.parent;
+    if(parent != null)
+      parent.notifyChildModified(this);
+  }
+
+  protected void checkWritable() {
+    if(objService.isReadOnly()) throw new ReadOnlyFileSystemException();
+  }
+
   protected void exile() {
     parent = null;
+    objService.advanceDetachEpoch();
   }
 
   protected abstract Class<? extends Snapshot> getSnapshotType();
 
   public abstract long getSize() throws IOException;
 
+  @Nonnull
+  public abstract TreeStats getStats() throws IOException;
+
   protected abstract void checkFileMode(FileMode proposed);
 
   @Nonnull
@@ -8,6 +8,9 @@ import com.beijunyi.parallelgit.filesystem.GfsObjectService;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 
+import static com.beijunyi.parallelgit.utils.io.GitFileEntry.newTreeEntry;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
 
 public class RootNode extends DirectoryNode {
 
@@ -30,6 +33,17 @@ public class RootNode extends DirectoryNode {
     return new RootNode(objService);
   }
 
+  public void reset(ObjectId tree) {
+    checkWritable();
+    discardChildren();
+    origin = newTreeEntry(tree);
+    snapshot = null;
+    id = tree;
+    data = null;
+    invalidateModified();
+    notifyWatchers(OVERFLOW, null);
+  }
+
   @Override
   protected boolean isTrivial(Map<String, Node> data) {
     return false;
@@ -0,0 +1,87 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.filesystem.GfsObjectService;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.TreeSnapshot;
+import org.eclipse.jgit.lib.ObjectId;
+
+import static org.eclipse.jgit.lib.FileMode.GITLINK;
+import static org.eclipse.jgit.lib.ObjectId.zeroId;
+
+public class TreeStats {
+
+  public static final TreeStats EMPTY = new TreeStats(0, 0);
+
+  private static final int CACHE_LIMIT = 16384;
+  private static final Map<ObjectId, TreeStats> CACHE = new LinkedHashMap<ObjectId, TreeStats>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ObjectId, TreeStats> eldest) {
+      return size() > CACHE_LIMIT;
+    }
+  };
+
+  private final long totalSize;
+  private final long fileCount;
+
+  private TreeStats(long totalSize, long fileCount) {
+    this.totalSize = totalSize;
+    this.fileCount = fileCount;
+  }
+
+  @Nonnull
+  public static TreeStats ofFile(long size) {
+    return new TreeStats(size, 1);
+  }
+
+  @Nonnull
+  public static TreeStats ofTree(ObjectId id, GfsObjectService objService) throws IOException {
+    if(zeroId().equals(id))
+      return EMPTY;
+    TreeStats ret = getCached(id);
+    if(ret == null) {
+      ret = EMPTY;
+      TreeSnapshot tree = objService.readTree(id);
+      for(GitFileEntry entry : tree.getData().values()) {
+        if(entry.isSubtree())
+          ret = ret.plus(ofTree(entry.getId(), objService));
+        else if(!GITLINK.equals(entry.getMode()))
+          ret = ret.plus(ofFile(objService.getBlobSize(entry.getId())));
+      }
+      cache(id, ret);
+    }
+    return ret;
+  }
+
+  public long getTotalSize() {
+    return totalSize;
+  }
+
+  public long getFileCount() {
+    return fileCount;
+  }
+
+  @Nonnull
+  public TreeStats plus(TreeStats that) {
+    return new TreeStats(totalSize + that.totalSize, fileCount + that.fileCount);
+  }
+
+  @Nullable
+  private static TreeStats getCached(ObjectId id) {
+    synchronized(CACHE) {
+      return CACHE.get(id);
+    }
+  }
+
+  private static void cache(ObjectId id, TreeStats stats) {
+    synchronized(CACHE) {
+      CACHE.put(id.copy(), stats);
+    }
+  }
+
+}
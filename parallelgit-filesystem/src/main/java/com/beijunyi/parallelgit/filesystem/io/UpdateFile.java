@@ -5,21 +5,30 @@ import javax.annotation.Nullable;
 import org.eclipse.jgit.lib.FileMode;
 
 import static com.beijunyi.parallelgit.filesystem.io.FileNode.fromBytes;
+import static com.beijunyi.parallelgit.filesystem.io.FileNode.fromProvider;
 
 public class UpdateFile extends GfsChange {
 
   private final byte[] bytes;
+  private final FileContentProvider provider;
   private final FileMode mode;
 
   public UpdateFile(byte[] bytes, FileMode mode) {
     this.bytes = bytes;
+    this.provider = null;
+    this.mode = mode;
+  }
+
+  public UpdateFile(FileContentProvider provider, FileMode mode) {
+    this.bytes = null;
+    this.provider = provider;
     this.mode = mode;
   }
 
   @Nullable
   @Override
   protected Node convertNode(@Nullable Node node, DirectoryNode parent) {
-    return fromBytes(bytes, mode, parent);
+    return provider != null ? fromProvider(provider, mode, parent) : fromBytes(bytes, mode, parent);
   }
 
 }
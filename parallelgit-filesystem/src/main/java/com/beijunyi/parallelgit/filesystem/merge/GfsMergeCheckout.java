@@ -5,6 +5,7 @@ import java.util.Map;
 import javax.annotation.Nonnull;
 
 import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.io.FileContentProvider;
 import com.beijunyi.parallelgit.filesystem.io.GfsDefaultCheckout;
 import org.eclipse.jgit.merge.MergeFormatter;
 
@@ -41,14 +42,29 @@ public class GfsMergeCheckout extends GfsDefaultCheckout {
     super.applyChanges();
   }
 
-  private void addFormattedConflicts() throws IOException {
+  private void addFormattedConflicts() {
     if(conflicts != null) {
-      for(Map.Entry<String, MergeConflict> conflict : conflicts.entrySet()) {
-        String path = conflict.getKey();
-        byte[] formatted = conflict.getValue().format(formatter);
-        changes.addChange(path, formatted, REGULAR_FILE);
-      }
+      for(Map.Entry<String, MergeConflict> conflict : conflicts.entrySet())
+        changes.addChange(conflict.getKey(), new FormattedConflict(conflict.getValue(), formatter), REGULAR_FILE);
     }
   }
 
+  private static class FormattedConflict implements FileContentProvider {
+
+    private final MergeConflict conflict;
+    private final MergeFormatter formatter;
+
+    private FormattedConflict(MergeConflict conflict, MergeFormatter formatter) {
+      this.conflict = conflict;
+      this.formatter = formatter;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getContent() {
+      return conflict.format(formatter);
+    }
+
+  }
+
 }
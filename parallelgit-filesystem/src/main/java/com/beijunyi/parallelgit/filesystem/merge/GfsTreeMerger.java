@@ -0,0 +1,272 @@
+package com.beijunyi.parallelgit.filesystem.merge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.utils.CommitUtils;
+import com.beijunyi.parallelgit.utils.io.BlobSnapshot;
+import com.beijunyi.parallelgit.utils.io.CommitGraph;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.TreeSnapshot;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.merge.MergeAlgorithm;
+import org.eclipse.jgit.merge.MergeFormatter;
+import org.eclipse.jgit.merge.MergeResult;
+import org.eclipse.jgit.merge.ResolveMerger;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import static com.beijunyi.parallelgit.utils.io.GitFileEntry.*;
+import static com.beijunyi.parallelgit.filesystem.merge.MergeConflict.readConflicts;
+import static java.util.Collections.*;
+import static org.eclipse.jgit.lib.Constants.CHARSET;
+import static org.eclipse.jgit.lib.FileMode.*;
+import static org.eclipse.jgit.merge.MergeStrategy.RECURSIVE;
+
+public class GfsTreeMerger {
+
+  private static final ObjectId EMPTY_TREE = new ObjectInserter.Formatter().idFor(new TreeFormatter());
+
+  private final Repository repo;
+  private final String[] names;
+  private final MergeAlgorithm algorithm = new MergeAlgorithm();
+  private final MergeFormatter formatter = new MergeFormatter();
+  private final SortedMap<String, MergeConflict> conflicts = new TreeMap<>();
+
+  private Map<AnyObjectId, SortedMap<String, GitFileEntry>> trees;
+  private ObjectReader reader;
+  private ObjectInserter inserter;
+  private boolean unsupported;
+
+  public GfsTreeMerger(Repository repo, String[] names) {
+    this.repo = repo;
+    this.names = names;
+  }
+
+  @Nonnull
+  public GfsTreeMerger withTreeCache(@Nullable Map<AnyObjectId, SortedMap<String, GitFileEntry>> trees) {
+    this.trees = trees;
+    return this;
+  }
+
+  @Nullable
+  public ObjectId merge(RevCommit ours, RevCommit theirs) throws IOException {
+    try(ObjectReader reader = repo.newObjectReader()) {
+      return merge(ours, theirs, reader);
+    }
+  }
+
+  @Nullable
+  public ObjectId merge(RevCommit ours, RevCommit theirs, ObjectReader reader) throws IOException {
+    RevCommit base = findMergeBase(ours, theirs, reader);
+    if(unsupported)
+      return null;
+    return merge(base != null ? base.getTree() : null, ours.getTree(), theirs.getTree(), reader);
+  }
+
+  @Nullable
+  public ObjectId merge(@Nullable AnyObjectId baseTree, AnyObjectId ourTree, AnyObjectId theirTree, ObjectReader reader) throws IOException {
+    try(ObjectInserter inserter = repo.newObjectInserter()) {
+      this.reader = reader;
+      this.inserter = inserter;
+      GitFileEntry base = baseTree != null ? newTreeEntry(baseTree.toObjectId()) : missingEntry();
+      ObjectId ret = mergeTrees("", base, newTreeEntry(ourTree.toObjectId()), newTreeEntry(theirTree.toObjectId()));
+      if(unsupported)
+        return null;
+      inserter.flush();
+      return ret;
+    } finally {
+      this.reader = null;
+      this.inserter = null;
+    }
+  }
+
+  @Nonnull
+  public ObjectId mergeOrResolve(@Nullable AnyObjectId baseTree, AnyObjectId ourTree, AnyObjectId theirTree, ObjectReader reader) throws IOException {
+    ObjectId ret = merge(baseTree, ourTree, theirTree, reader);
+    return ret != null ? ret : resolve(baseTree, ourTree, theirTree);
+  }
+
+  public boolean hasConflicts() {
+    return !conflicts.isEmpty();
+  }
+
+  @Nonnull
+  public Map<String, MergeConflict> getConflicts() {
+    return unmodifiableMap(conflicts);
+  }
+
+  @Nonnull
+  public List<String> getUnmergedPaths() {
+    List<String> ret = new ArrayList<>();
+    for(String path : conflicts.keySet())
+      ret.add(path.substring(1));
+    return unmodifiableList(ret);
+  }
+
+  @Nonnull
+  private ObjectId resolve(@Nullable AnyObjectId baseTree, AnyObjectId ourTree, AnyObjectId theirTree) throws IOException {
+    unsupported = false;
+    conflicts.clear();
+    DirCache cache = DirCache.newInCore();
+    ResolveMerger merger = (ResolveMerger) RECURSIVE.newMerger(repo, true);
+    merger.setDirCache(cache);
+    merger.setBase(baseTree);
+    merger.setCommitNames(names);
+    if(merger.merge(ourTree, theirTree))
+      return merger.getResultTreeId();
+    conflicts.putAll(readConflicts(merger));
+    return writeOurs(cache);
+  }
+
+  @Nonnull
+  private ObjectId writeOurs(DirCache cache) throws IOException {
+    DirCache ours = DirCache.newInCore();
+    DirCacheBuilder builder = ours.builder();
+    for(int i = 0; i < cache.getEntryCount(); i++) {
+      DirCacheEntry entry = cache.getEntry(i);
+      if(entry.getStage() == DirCacheEntry.STAGE_0 || entry.getStage() == DirCacheEntry.STAGE_2) {
+        DirCacheEntry copy = new DirCacheEntry(entry.getPathString());
+        copy.setFileMode(entry.getFileMode());
+        copy.setObjectId(entry.getObjectId());
+        builder.add(copy);
+      }
+    }
+    builder.finish();
+    try(ObjectInserter inserter = repo.newObjectInserter()) {
+      ObjectId ret = ours.writeTree(inserter);
+      inserter.flush();
+      return ret;
+    }
+  }
+
+  @Nullable
+  private RevCommit findMergeBase(RevCommit ours, RevCommit theirs, ObjectReader reader) throws IOException {
+    List<ObjectId> bases = CommitGraph.forRepository(repo).getMergeBases(ours, theirs, reader);
+    if(bases.size() > 1)
+      unsupported = true;
+    return bases.isEmpty() ? null : CommitUtils.getCommit(bases.get(0), reader);
+  }
+
+  @Nonnull
+  private ObjectId mergeTrees(String path, GitFileEntry base, GitFileEntry ours, GitFileEntry theirs) throws IOException {
+    Map<String, GitFileEntry> baseChildren = listChildren(base);
+    Map<String, GitFileEntry> ourChildren = listChildren(ours);
+    Map<String, GitFileEntry> theirChildren = listChildren(theirs);
+    SortedSet<String> children = new TreeSet<>(ourChildren.keySet());
+    children.addAll(theirChildren.keySet());
+    SortedMap<String, GitFileEntry> entries = new TreeMap<>();
+    for(String name : children) {
+      GitFileEntry entry = mergeEntries(path + "/" + name, entryOf(baseChildren, name), entryOf(ourChildren, name), entryOf(theirChildren, name));
+      if(unsupported)
+        return ObjectId.zeroId();
+      if(!entry.isMissing())
+        entries.put(name, entry);
+    }
+    return TreeSnapshot.capture(entries).save(inserter);
+  }
+
+  @Nonnull
+  private GitFileEntry mergeEntries(String path, GitFileEntry base, GitFileEntry ours, GitFileEntry theirs) throws IOException {
+    if(ours.equals(theirs) || base.equals(theirs))
+      return ours;
+    if(base.equals(ours))
+      return theirs;
+    if(ours.isSubtree() && theirs.isSubtree()) {
+      ObjectId tree = mergeTrees(path, base.isSubtree() ? base : missingEntry(), ours, theirs);
+      return EMPTY_TREE.equals(tree) ? missingEntry() : newTreeEntry(tree);
+    }
+    if(isMergeable(base) && isMergeable(ours) && isMergeable(theirs))
+      return mergeFiles(path, base, ours, theirs);
+    unsupported = true;
+    return missingEntry();
+  }
+
+  @Nonnull
+  private GitFileEntry mergeFiles(String path, GitFileEntry base, GitFileEntry ours, GitFileEntry theirs) throws IOException {
+    FileMode mode = mergeModes(base, ours, theirs);
+    if(mode == null) {
+      unsupported = true;
+      return missingEntry();
+    }
+    if(!ours.isMissing() && ours.getId().equals(theirs.getId()))
+      return newEntry(ours.getId(), mode);
+    byte[] baseBytes = readBytes(base);
+    byte[] ourBytes = readBytes(ours);
+    byte[] theirBytes = readBytes(theirs);
+    if(RawText.isBinary(baseBytes) || RawText.isBinary(ourBytes) || RawText.isBinary(theirBytes)) {
+      if(ours.isMissing()) {
+        conflicts.put(path, MergeConflict.binaryConflict(theirBytes, names));
+        return theirs;
+      }
+      conflicts.put(path, MergeConflict.binaryConflict(ourBytes, names));
+      return ours;
+    }
+    MergeResult<RawText> result = algorithm.merge(RawTextComparator.DEFAULT, new RawText(baseBytes), new RawText(ourBytes), new RawText(theirBytes));
+    if(result.containsConflicts() || ours.isMissing() || theirs.isMissing()) {
+      conflicts.put(path, MergeConflict.newConflict(result, names));
+      return ours;
+    }
+    return newEntry(BlobSnapshot.capture(format(result)).save(inserter), mode);
+  }
+
+  @Nonnull
+  private byte[] format(MergeResult<RawText> result) throws IOException {
+    try(ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
+      formatter.formatMerge(stream, result, names[0], names[1], names[2], CHARSET.name());
+      return stream.toByteArray();
+    }
+  }
+
+  @Nonnull
+  private byte[] readBytes(GitFileEntry entry) throws IOException {
+    if(entry.isMissing())
+      return new byte[0];
+    return reader.open(entry.getId()).getCachedBytes();
+  }
+
+  @Nonnull
+  private Map<String, GitFileEntry> listChildren(GitFileEntry entry) throws IOException {
+    if(!entry.isSubtree())
+      return emptyMap();
+    if(trees == null)
+      return TreeSnapshot.load(entry.getId(), reader).getData();
+    SortedMap<String, GitFileEntry> ret = trees.get(entry.getId());
+    if(ret == null) {
+      ret = unmodifiableSortedMap(TreeSnapshot.load(entry.getId(), reader).getData());
+      trees.put(entry.getId(), ret);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private static GitFileEntry entryOf(Map<String, GitFileEntry> entries, String name) {
+    GitFileEntry ret = entries.get(name);
+    return ret != null ? ret : missingEntry();
+  }
+
+  @Nullable
+  private static FileMode mergeModes(GitFileEntry base, GitFileEntry ours, GitFileEntry theirs) {
+    if(ours.isMissing())
+      return theirs.getMode();
+    if(theirs.isMissing() || ours.getMode().equals(theirs.getMode()))
+      return ours.getMode();
+    if(base.getMode().equals(ours.getMode()))
+      return theirs.getMode();
+    if(base.getMode().equals(theirs.getMode()))
+      return ours.getMode();
+    return null;
+  }
+
+  private static boolean isMergeable(GitFileEntry entry) {
+    return entry.isMissing() || REGULAR_FILE.equals(entry.getMode()) || EXECUTABLE_FILE.equals(entry.getMode());
+  }
+
+}
@@ -2,9 +2,11 @@ package com.beijunyi.parallelgit.filesystem.merge;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.eclipse.jgit.diff.Sequence;
 import org.eclipse.jgit.merge.MergeFormatter;
@@ -18,13 +20,29 @@ import static org.eclipse.jgit.lib.Constants.CHARSET;
 public class MergeConflict {
 
   private final MergeResult<? extends Sequence> result;
+  private final byte[] content;
   private final String[] names;
 
-  private MergeConflict(MergeResult<? extends Sequence> result, String[] names) {
+  private MergeConflict(@Nullable MergeResult<? extends Sequence> result, @Nullable byte[] content, String[] names) {
     this.result = result;
+    this.content = content;
     this.names = names;
   }
 
+  private MergeConflict(MergeResult<? extends Sequence> result, String[] names) {
+    this(result, null, names);
+  }
+
+  @Nonnull
+  public static MergeConflict newConflict(MergeResult<? extends Sequence> result, String[] names) {
+    return new MergeConflict(result, names);
+  }
+
+  @Nonnull
+  public static MergeConflict binaryConflict(byte[] ours, String[] names) {
+    return new MergeConflict(null, ours, names);
+  }
+
   @Nonnull
   public static Map<String, MergeConflict> readConflicts(ResolveMerger merger) {
     Map<String, MergeConflict> ret = new HashMap<>();
@@ -36,11 +54,23 @@ public class MergeConflict {
   @Nonnull
   public byte[] format(MergeFormatter formatter) {
     try(ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
-      formatter.formatMerge(stream, result, names[0], names[1], names[2], CHARSET.name());
+      format(formatter, stream);
       return stream.toByteArray();
     } catch(IOException e) {
       throw new IllegalStateException(e);
     }
   }
 
+  public boolean isBinary() {
+    return content != null;
+  }
+
+  public void format(MergeFormatter formatter, OutputStream out) throws IOException {
+    if(content != null) {
+      out.write(content);
+      return;
+    }
+    formatter.formatMerge(out, result, names[0], names[1], names[2], CHARSET.name());
+  }
+
 }
@@ -3,16 +3,23 @@ package com.beijunyi.parallelgit.filesystem.merge;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 public class MergeNote {
 
   private final RevCommit source;
   private final String message;
+  private final PersonIdent author;
 
-  private MergeNote(@Nullable RevCommit source, String message) {
+  private MergeNote(@Nullable RevCommit source, String message, @Nullable PersonIdent author) {
     this.source = source;
     this.message = message;
+    this.author = author;
+  }
+
+  private MergeNote(@Nullable RevCommit source, String message) {
+    this(source, message, null);
   }
 
   @Nonnull
@@ -35,6 +42,11 @@ public class MergeNote {
     return new MergeNote(source, message);
   }
 
+  @Nonnull
+  public static MergeNote cherryPickConflicting(String message, PersonIdent author) {
+    return new MergeNote(null, message, author);
+  }
+
   @Nullable
   public RevCommit getSource() {
     return source;
@@ -45,4 +57,9 @@ public class MergeNote {
     return message;
   }
 
+  @Nullable
+  public PersonIdent getAuthor() {
+    return author;
+  }
+
 }
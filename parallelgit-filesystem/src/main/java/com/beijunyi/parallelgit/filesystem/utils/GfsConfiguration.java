@@ -27,6 +27,7 @@ public class GfsConfiguration {
   private final Repository repo;
   private String branch;
   private RevCommit commit;
+  private boolean readOnly = false;
 
   public GfsConfiguration(Repository repo) {
     this.repo = repo;
@@ -122,6 +123,16 @@ public class GfsConfiguration {
     return commit;
   }
 
+  @Nonnull
+  public GfsConfiguration readOnly(boolean readOnly) {
+    this.readOnly = readOnly;
+    return this;
+  }
+
+  public boolean readOnly() {
+    return readOnly;
+  }
+
   @Nonnull
   private GfsConfiguration readProperties(Map<String, ?> props) throws IOException {
     String branch = (String) props.get(BRANCH);
@@ -132,6 +143,9 @@ public class GfsConfiguration {
       if(commit != null)
         commit(commit);
     }
+    Object readOnly = props.get(READ_ONLY);
+    if(readOnly != null)
+      readOnly(Boolean.parseBoolean(readOnly.toString()));
     return this;
   }
 
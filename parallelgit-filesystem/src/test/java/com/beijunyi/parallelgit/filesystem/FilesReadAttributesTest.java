@@ -5,9 +5,11 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.util.Map;
 
+import com.beijunyi.parallelgit.filesystem.io.GfsFileAttributeView;
 import com.beijunyi.parallelgit.filesystem.io.GfsFileAttributes;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class FilesReadAttributesTest extends PreSetupGitFileSystemTest {
@@ -36,6 +38,13 @@ public class FilesReadAttributesTest extends PreSetupGitFileSystemTest {
     assertTrue(attributeMap.containsKey("owner"));
   }
 
+  @Test
+  public void readAllGitAttributes_theResultShouldContainAllGitAttributes() throws IOException {
+    writeToGfs("/file.txt");
+    Map<String, Object> attributeMap = Files.readAttributes(gfs.getPath("/file.txt"), "git:*");
+    assertEquals(GfsFileAttributeView.Git.GIT_KEYS, attributeMap.keySet());
+  }
+
   @Test(expected = NoSuchFileException.class)
   public void readAttributesFromNonExistentFile_shouldThrowNoSuchFileException1() throws IOException {
     provider.readAttributes(gfs.getPath("/non_existent_file.txt"), GfsFileAttributes.Basic.class);
@@ -0,0 +1,92 @@
+package com.beijunyi.parallelgit.filesystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.*;
+
+public class GfsObjectCacheTest extends AbstractGitFileSystemTest {
+
+  private ObjectId blob;
+  private RevCommit commit;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    blob = writeToCache("/dir/file.txt", "some text");
+    commit = commitToMaster();
+  }
+
+  @Test
+  public void readSameTreeFromTwoSessions_shouldReturnTheSharedSnapshot() throws IOException {
+    try(GitFileSystem first = Gfs.newFileSystem(commit, repo); GitFileSystem second = Gfs.newFileSystem(commit, repo)) {
+      assertSame(first.getObjectService().readTree(commit.getTree()), second.getObjectService().readTree(commit.getTree()));
+    }
+  }
+
+  @Test
+  public void readSameBlobFromTwoSessions_shouldReturnTheSharedBytes() throws IOException {
+    try(GitFileSystem first = Gfs.newFileSystem(commit, repo); GitFileSystem second = Gfs.newFileSystem(commit, repo)) {
+      assertEquals("some text", readAsString(first.getPath("/dir/file.txt")));
+      assertEquals("some text", readAsString(second.getPath("/dir/file.txt")));
+      assertSame(first.getObjectService().readBlobData(blob), second.getObjectService().readBlobData(blob));
+    }
+  }
+
+  @Test
+  public void streamFileFromSession_theBlobShouldBeCachedForTheRepository() throws IOException {
+    try(GitFileSystem gfs = Gfs.newFileSystem(commit, repo); InputStream stream = Files.newInputStream(gfs.getPath("/dir/file.txt"))) {
+      while(stream.read() != -1);
+    }
+    assertNotNull(GfsObjectCache.forRepository(repo).getBlob(blob));
+  }
+
+  @Test(expected = ClosedFileSystemException.class)
+  public void readCachedBlobDataAfterSessionIsClosed_shouldThrowClosedFileSystemException() throws IOException {
+    GitFileSystem gfs = Gfs.newFileSystem(commit, repo);
+    gfs.getObjectService().readBlobData(blob);
+    gfs.close();
+    gfs.getObjectService().readBlobData(blob);
+  }
+
+  @Test
+  public void readSameSimilarityIndexFromTwoSessions_shouldReturnTheSharedIndex() throws IOException {
+    try(GitFileSystem first = Gfs.newFileSystem(commit, repo); GitFileSystem second = Gfs.newFileSystem(commit, repo)) {
+      assertSame(first.getObjectService().readSimilarityIndex(blob), second.getObjectService().readSimilarityIndex(blob));
+    }
+  }
+
+  @Test
+  public void overwriteFileInOneSession_theOtherSessionShouldStillSeeTheOriginalContent() throws IOException {
+    try(GitFileSystem first = Gfs.newFileSystem(commit, repo); GitFileSystem second = Gfs.newFileSystem(commit, repo)) {
+      assertEquals("some text", readAsString(first.getPath("/dir/file.txt")));
+      assertEquals("some text", readAsString(second.getPath("/dir/file.txt")));
+      try(SeekableByteChannel channel = Files.newByteChannel(first.getPath("/dir/file.txt"), WRITE)) {
+        channel.write(ByteBuffer.wrap("SOME".getBytes()));
+      }
+      assertEquals("SOME text", readAsString(first.getPath("/dir/file.txt")));
+      assertEquals("some text", readAsString(second.getPath("/dir/file.txt")));
+    }
+  }
+
+  @Test
+  public void overwriteFileInOneSession_newSessionsShouldStillSeeTheOriginalContent() throws IOException {
+    try(GitFileSystem first = Gfs.newFileSystem(commit, repo)) {
+      Files.write(first.getPath("/dir/file.txt"), "changed".getBytes());
+    }
+    try(GitFileSystem second = Gfs.newFileSystem(commit, repo)) {
+      assertEquals("some text", readAsString(second.getPath("/dir/file.txt")));
+    }
+  }
+
+}
@@ -71,8 +71,8 @@ public class GitFileSystemBasicTest extends PreSetupGitFileSystemTest {
     gfs.getUserPrincipalLookupService();
   }
 
-  @Test(expected = UnsupportedOperationException.class)
-  public void newWatchService_shouldThrowUnsupportedOperationException() {
-    gfs.newWatchService();
+  @Test
+  public void newWatchService_shouldReturnNewGfsWatchService() {
+    assertNotNull(gfs.newWatchService());
   }
 }
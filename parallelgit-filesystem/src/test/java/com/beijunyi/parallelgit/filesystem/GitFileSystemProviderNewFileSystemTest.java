@@ -73,4 +73,15 @@ public class GitFileSystemProviderNewFileSystemTest extends AbstractGitFileSyste
     }
   }
 
+  @Test
+  public void openReadOnly() throws IOException {
+    initFileRepository(true);
+    URI uri = GfsUriBuilder.prepare()
+                .repository(repoDir)
+                .build();
+    try(GitFileSystem gfs = provider.newFileSystem(uri, singletonMap(READ_ONLY, true))) {
+      assertTrue(gfs.isReadOnly());
+    }
+  }
+
 }
@@ -0,0 +1,76 @@
+package com.beijunyi.parallelgit.filesystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.ReadOnlyFileSystemException;
+
+import com.beijunyi.parallelgit.filesystem.utils.GfsConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.eclipse.jgit.lib.Constants.MASTER;
+import static org.junit.Assert.*;
+
+public class GitFileSystemReadOnlyTest extends AbstractGitFileSystemTest {
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt", "some text");
+    commitToMaster();
+    injectGitFileSystem(Gfs.newFileSystem(GfsConfiguration.repo(repo).branch(MASTER).readOnly(true)));
+  }
+
+  @Test
+  public void isReadOnly_shouldReturnTrue() {
+    assertTrue(gfs.isReadOnly());
+    assertTrue(gfs.getFileStore().isReadOnly());
+  }
+
+  @Test
+  public void readFile_shouldReturnTheCommittedContent() throws IOException {
+    assertEquals("some text", readAsString(gfs.getPath("/dir/file.txt")));
+  }
+
+  @Test(expected = ReadOnlyFileSystemException.class)
+  public void writeFile_shouldThrowReadOnlyFileSystemException() throws IOException {
+    Files.write(gfs.getPath("/dir/file.txt"), someBytes());
+  }
+
+  @Test(expected = ReadOnlyFileSystemException.class)
+  public void appendToFile_shouldThrowReadOnlyFileSystemException() throws IOException {
+    Files.write(gfs.getPath("/dir/file.txt"), someBytes(), APPEND);
+  }
+
+  @Test(expected = ReadOnlyFileSystemException.class)
+  public void createDirectory_shouldThrowReadOnlyFileSystemException() throws IOException {
+    Files.createDirectory(gfs.getPath("/new_dir"));
+  }
+
+  @Test(expected = ReadOnlyFileSystemException.class)
+  public void deleteFile_shouldThrowReadOnlyFileSystemException() throws IOException {
+    Files.delete(gfs.getPath("/dir/file.txt"));
+  }
+
+  @Test(expected = ReadOnlyFileSystemException.class)
+  public void hardReset_shouldThrowReadOnlyFileSystemException() throws IOException {
+    Gfs.reset(gfs).execute();
+  }
+
+  @Test(expected = ReadOnlyFileSystemException.class)
+  public void forcedCheckout_shouldThrowReadOnlyFileSystemException() throws IOException {
+    Gfs.checkout(gfs).target(MASTER).force(true).execute();
+  }
+
+  @Test(expected = ReadOnlyFileSystemException.class)
+  public void resetRootTree_shouldThrowReadOnlyFileSystemException() throws IOException {
+    gfs.reset(gfs.getStatusProvider().commit().getTree());
+  }
+
+  @Test
+  public void getStatus_shouldReturnCleanResult() throws IOException {
+    assertTrue(Gfs.status(gfs).execute().isClean());
+  }
+
+}
@@ -1,11 +1,13 @@
 package com.beijunyi.parallelgit.filesystem;
 
 import java.io.IOException;
-import java.nio.file.WatchEvent;
+import java.nio.file.*;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+
 public class GitPathBasicPropertiesTest extends AbstractGitFileSystemTest {
 
   @Before
@@ -18,13 +20,20 @@ public class GitPathBasicPropertiesTest extends AbstractGitFileSystemTest {
     root.toFile();
   }
 
-  @Test(expected = UnsupportedOperationException.class)
-  public void registerWatcherTest() {
-    root.register(null);
+  @Test(expected = ProviderMismatchException.class)
+  public void registerForeignWatcherTest() throws IOException {
+    root.register(FileSystems.getDefault().newWatchService());
   }
 
-  @Test(expected = UnsupportedOperationException.class)
-  public void registerWatcherWithModifierTest() {
-    root.register(null, new WatchEvent.Kind<?>[0], new WatchEvent.Modifier[0]);
+  @Test
+  public void registerWatcherTest() throws IOException {
+    WatchKey key = root.register(gfs.newWatchService());
+    assertEquals(root, key.watchable());
+  }
+
+  @Test
+  public void registerWatcherWithModifierTest() throws IOException {
+    WatchKey key = root.register(gfs.newWatchService(), new WatchEvent.Kind<?>[0], new WatchEvent.Modifier[0]);
+    assertTrue(key.isValid());
   }
 }
@@ -10,7 +10,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static com.beijunyi.parallelgit.filesystem.Gfs.*;
-import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.*;
 import static org.eclipse.jgit.util.RawParseUtils.decode;
 import static org.junit.Assert.*;
 
@@ -86,4 +86,51 @@ public class GfsApplyStashTest extends AbstractGitFileSystemTest {
                  ">>>>>>> Stashed changes\n", decode(readAllBytes(gfs.getPath("/test_file.txt"))));
   }
 
+  @Test
+  public void applyStashAfterUnrelatedCommit_bothChangesShouldAppearInTheFileSystem() throws IOException {
+    writeToGfs("/dir/stashed.txt", "stashed");
+    createStash(gfs).execute();
+    reset(gfs).execute();
+
+    writeToGfs("/committed.txt", "committed");
+    Gfs.commit(gfs).execute();
+
+    Result result = applyStash(gfs).execute();
+
+    assertTrue(result.isSuccessful());
+    assertEquals("stashed", decode(readAllBytes(gfs.getPath("/dir/stashed.txt"))));
+    assertEquals("committed", decode(readAllBytes(gfs.getPath("/committed.txt"))));
+  }
+
+  @Test
+  public void applyStashAfterCommitChangingAnotherLine_bothChangesShouldBeMergedIntoTheFile() throws IOException {
+    writeToGfs("/test_file.txt", "a\nb\nc\n");
+    Gfs.commit(gfs).execute();
+    writeToGfs("/test_file.txt", "a\nb\nC\n");
+    createStash(gfs).execute();
+    reset(gfs).execute();
+
+    writeToGfs("/test_file.txt", "A\nb\nc\n");
+    Gfs.commit(gfs).execute();
+
+    Result result = applyStash(gfs).execute();
+
+    assertTrue(result.isSuccessful());
+    assertEquals("A\nb\nC\n", decode(readAllBytes(gfs.getPath("/test_file.txt"))));
+  }
+
+  @Test
+  public void applyStashWithDeletion_theFileShouldBeDeletedFromTheFileSystem() throws IOException {
+    writeToGfs("/test_file.txt", "some text");
+    Gfs.commit(gfs).execute();
+    delete(gfs.getPath("/test_file.txt"));
+    createStash(gfs).execute();
+    reset(gfs).execute();
+
+    Result result = applyStash(gfs).execute();
+
+    assertTrue(result.isSuccessful());
+    assertFalse(exists(gfs.getPath("/test_file.txt")));
+  }
+
 }
@@ -0,0 +1,119 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.utils.TreeUtils;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.beijunyi.parallelgit.filesystem.Gfs.*;
+import static com.beijunyi.parallelgit.utils.BranchUtils.getHeadCommit;
+import static java.nio.file.Files.write;
+import static org.junit.Assert.*;
+
+public class GfsBatchCommitTest extends AbstractParallelGitTest {
+
+  private AnyObjectId base;
+  private GitFileSystem data;
+  private GitFileSystem index;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    base = commit();
+    commitToBranch("data", base);
+    commitToBranch("index", base);
+    data = newFileSystem("data", repo);
+    index = newFileSystem("index", repo);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    data.close();
+    index.close();
+  }
+
+  @Test
+  public void commitMultipleSessions_allBranchesShouldBeUpdated() throws IOException {
+    write(data.getPath("/data.txt"), someBytes());
+    write(index.getPath("/index.txt"), someBytes());
+    List<GfsCommit.Result> results = batchCommit(repo)
+                                       .commit(data, "update data")
+                                       .commit(index, "update index")
+                                       .execute();
+
+    assertEquals(2, results.size());
+    RevCommit dataHead = getHeadCommit("data", repo);
+    RevCommit indexHead = getHeadCommit("index", repo);
+    assertEquals(results.get(0).getCommit(), dataHead);
+    assertEquals(results.get(1).getCommit(), indexHead);
+    assertTrue(TreeUtils.exists("data.txt", dataHead.getTree(), repo));
+    assertTrue(TreeUtils.exists("index.txt", indexHead.getTree(), repo));
+  }
+
+  @Test
+  public void commitMultipleSessions_eachSessionShouldBeAttachedToItsNewCommit() throws IOException {
+    write(data.getPath("/data.txt"), someBytes());
+    write(index.getPath("/index.txt"), someBytes());
+    List<GfsCommit.Result> results = batchCommit(repo)
+                                       .commit(data, "update data")
+                                       .commit(index, "update index")
+                                       .execute();
+
+    assertEquals(results.get(0).getCommit(), data.getStatusProvider().commit());
+    assertEquals(results.get(1).getCommit(), index.getStatusProvider().commit());
+    assertFalse(data.getStatusProvider().isDirty());
+  }
+
+  @Test
+  public void commitWhenOneSessionHasNoChange_theOtherBranchShouldStillBeUpdated() throws IOException {
+    RevCommit indexHead = getHeadCommit("index", repo);
+    write(data.getPath("/data.txt"), someBytes());
+    List<GfsCommit.Result> results = batchCommit(repo)
+                                       .commit(data, "update data")
+                                       .commit(index, "update index")
+                                       .execute();
+
+    assertEquals(GfsCommit.Status.COMMITTED, results.get(0).getStatus());
+    assertEquals(GfsCommit.Status.NO_CHANGE, results.get(1).getStatus());
+    assertEquals(indexHead, getHeadCommit("index", repo));
+  }
+
+  @Test
+  public void commitWhenOneBranchHasMoved_onlyThatSessionShouldBeRejected() throws IOException {
+    RevCommit indexHead = getHeadCommit("index", repo);
+    writeSomethingToCache();
+    RevCommit movedIndexHead = commitToBranch("index", indexHead);
+    write(data.getPath("/data.txt"), someBytes());
+    write(index.getPath("/index.txt"), someBytes());
+    List<GfsCommit.Result> results = batchCommit(repo)
+                                       .commit(data, "update data")
+                                       .commit(index, "update index")
+                                       .execute();
+
+    assertEquals(GfsCommit.Status.COMMITTED, results.get(0).getStatus());
+    assertEquals(results.get(0).getCommit(), getHeadCommit("data", repo));
+    assertEquals(results.get(0).getCommit(), data.getStatusProvider().commit());
+    assertEquals(GfsCommit.Status.REJECTED, results.get(1).getStatus());
+    assertEquals(movedIndexHead, getHeadCommit("index", repo));
+    assertEquals(indexHead, index.getStatusProvider().commit());
+    assertTrue(index.getStatusProvider().isDirty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void commitSameBranchTwice_shouldThrowIllegalArgumentException() throws IOException {
+    try(GitFileSystem other = newFileSystem("data", repo)) {
+      batchCommit(repo)
+        .commit(data, "update data")
+        .commit(other, "update data again")
+        .execute();
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.utils.TreeUtils;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.beijunyi.parallelgit.filesystem.Gfs.batchMerge;
+import static com.beijunyi.parallelgit.filesystem.commands.GfsMerge.Status.*;
+import static com.beijunyi.parallelgit.utils.BranchUtils.getHeadCommit;
+import static org.junit.Assert.*;
+
+public class GfsBatchMergeTest extends AbstractParallelGitTest {
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    AnyObjectId base = commit();
+    writeToCache("/release_file.txt");
+    commitToBranch("release", base);
+    for(int i = 0; i < 4; i++) {
+      clearCache();
+      writeToCache("/feature_file_" + i + ".txt");
+      commitToBranch("feature" + i, base);
+    }
+  }
+
+  @Test
+  public void mergeIntoManyBranches_eachBranchShouldContainTheMergedChanges() throws IOException {
+    GfsBatchMerge batch = batchMerge(repo).parallelism(2);
+    for(int i = 0; i < 4; i++)
+      batch.merge("feature" + i, "release");
+    List<GfsMerge.Result> results = batch.execute();
+
+    assertEquals(4, results.size());
+    for(int i = 0; i < 4; i++) {
+      assertEquals(MERGED, results.get(i).getStatus());
+      RevCommit head = getHeadCommit("feature" + i, repo);
+      assertEquals(results.get(i).getCommit(), head);
+      assertTrue(TreeUtils.exists("release_file.txt", head.getTree(), repo));
+      assertTrue(TreeUtils.exists("feature_file_" + i + ".txt", head.getTree(), repo));
+    }
+  }
+
+  @Test
+  public void mergeManySourcesIntoTheSameTarget_resultsShouldBeInRequestOrder() throws IOException {
+    List<GfsMerge.Result> results = batchMerge(repo)
+                                      .merge("release", "feature0")
+                                      .merge("release", "feature1")
+                                      .merge("feature2", "feature3")
+                                      .execute();
+
+    assertEquals(MERGED, results.get(0).getStatus());
+    assertEquals(MERGED, results.get(1).getStatus());
+    assertEquals(MERGED, results.get(2).getStatus());
+    RevCommit release = getHeadCommit("release", repo);
+    assertEquals(results.get(1).getCommit(), release);
+    assertTrue(TreeUtils.exists("feature_file_0.txt", release.getTree(), repo));
+    assertTrue(TreeUtils.exists("feature_file_1.txt", release.getTree(), repo));
+  }
+
+  @Test
+  public void mergeWithoutCommitting_branchHeadsShouldNotChange() throws IOException {
+    RevCommit head = getHeadCommit("feature0", repo);
+    List<GfsMerge.Result> results = batchMerge(repo).merge("feature0", "release").commit(false).execute();
+
+    assertEquals(MERGED_NOT_COMMITTED, results.get(0).getStatus());
+    assertEquals(head, getHeadCommit("feature0", repo));
+  }
+
+  @Test
+  public void mergeWhenOnePairFails_otherPairsShouldStillBeMerged() throws IOException {
+    List<GfsMerge.Result> results = batchMerge(repo)
+                                      .merge("feature0", "release")
+                                      .merge("feature1", "non_existent_branch")
+                                      .merge("feature2", "release")
+                                      .parallelism(2)
+                                      .execute();
+
+    assertEquals(MERGED, results.get(0).getStatus());
+    assertEquals(FAILED, results.get(1).getStatus());
+    assertNotNull(results.get(1).getFailure());
+    assertEquals(MERGED, results.get(2).getStatus());
+    assertEquals(results.get(2).getCommit(), getHeadCommit("feature2", repo));
+  }
+
+}
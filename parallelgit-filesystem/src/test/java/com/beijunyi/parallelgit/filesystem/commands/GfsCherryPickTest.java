@@ -0,0 +1,171 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.filesystem.Gfs;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.NoHeadCommitException;
+import com.beijunyi.parallelgit.filesystem.merge.MergeNote;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.beijunyi.parallelgit.filesystem.Gfs.*;
+import static com.beijunyi.parallelgit.filesystem.commands.GfsCherryPick.Result;
+import static com.beijunyi.parallelgit.filesystem.commands.GfsCherryPick.Status.*;
+import static com.beijunyi.parallelgit.utils.BranchUtils.getHeadCommit;
+import static com.beijunyi.parallelgit.utils.CommitUtils.createCommit;
+import static com.beijunyi.parallelgit.utils.CommitUtils.getCommit;
+import static java.nio.file.Files.*;
+import static org.eclipse.jgit.lib.FileMode.SYMLINK;
+import static org.junit.Assert.*;
+
+public class GfsCherryPickTest extends AbstractParallelGitTest {
+
+  private GitFileSystem gfs;
+  private RevCommit picked;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/test_file.txt", "line 1\nline 2\nline 3\n");
+    AnyObjectId base = commit();
+    writeToCache("/feature_file.txt", "feature");
+    commitToBranch("feature", base);
+    writeToCache("/test_file.txt", "line 1\nline 2\nline 3 changed\n");
+    picked = commitToBranch("feature", "picked message", getHeadCommit("feature", repo));
+    clearCache();
+    writeToCache("/test_file.txt", "line 1 changed\nline 2\nline 3\n");
+    commitToBranch("release", base);
+    gfs = newFileSystem("release", repo);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if(gfs != null) {
+      gfs.close();
+      gfs = null;
+    }
+  }
+
+  @Test
+  public void cherryPickNonConflictingCommit_shouldApplyOnlyTheChangesOfThatCommit() throws IOException {
+    Result result = cherryPick(gfs).commit(picked).execute();
+
+    assertEquals(PICKED, result.getStatus());
+    assertEquals("line 1 changed\nline 2\nline 3 changed\n", new String(readAllBytes(gfs.getPath("/test_file.txt"))));
+    assertFalse(exists(gfs.getPath("/feature_file.txt")));
+  }
+
+  @Test
+  public void cherryPickNonConflictingCommit_theNewCommitShouldKeepTheOriginalMessageAndAuthor() throws IOException {
+    RevCommit head = getHeadCommit("release", repo);
+    Result result = cherryPick(gfs).commit(picked).execute();
+
+    RevCommit commit = result.getCommit();
+    assertNotNull(commit);
+    assertEquals(commit, getHeadCommit("release", repo));
+    assertEquals(head, commit.getParent(0));
+    assertEquals(picked.getFullMessage(), commit.getFullMessage());
+    assertEquals(picked.getAuthorIdent(), commit.getAuthorIdent());
+  }
+
+  @Test
+  public void cherryPickWithoutCommittingResult_branchHeadShouldNotChange() throws IOException {
+    RevCommit head = getHeadCommit("release", repo);
+    Result result = cherryPick(gfs).revision("feature").commitResult(false).execute();
+
+    assertEquals(PICKED_NOT_COMMITTED, result.getStatus());
+    assertEquals(head, getHeadCommit("release", repo));
+    assertTrue(gfs.getStatusProvider().isDirty());
+  }
+
+  @Test
+  public void cherryPickConflictingCommit_shouldReturnConflictsAndWriteMergeNote() throws IOException {
+    writeToCache("/test_file.txt", "line 1 changed\nline 2\nline 3 conflicting\n");
+    commitToBranch("release");
+    gfs.close();
+    gfs = newFileSystem("release", repo);
+    Result result = cherryPick(gfs).commit(picked).execute();
+
+    assertEquals(CONFLICTING, result.getStatus());
+    assertTrue(result.getConflicts().containsKey("/test_file.txt"));
+    MergeNote note = gfs.getStatusProvider().mergeNote();
+    assertNotNull(note);
+    assertNull(note.getSource());
+    assertEquals(picked.getFullMessage(), note.getMessage());
+    assertEquals(picked.getAuthorIdent(), note.getAuthor());
+  }
+
+  @Test
+  public void commitAfterResolvingCherryPickConflicts_theCommitShouldKeepTheOriginalAuthor() throws IOException {
+    writeToCache("/test_file.txt", "line 1 changed\nline 2\nline 3 conflicting\n");
+    commitToBranch("release");
+    gfs.close();
+    gfs = newFileSystem("release", repo);
+    cherryPick(gfs).commit(picked).execute();
+    write(gfs.getPath("/test_file.txt"), "line 1 changed\nline 2\nline 3 resolved\n".getBytes());
+    GfsCommit.Result result = Gfs.commit(gfs).execute();
+
+    RevCommit commit = result.getCommit();
+    assertNotNull(commit);
+    assertEquals(picked.getFullMessage(), commit.getFullMessage());
+    assertEquals(picked.getAuthorIdent(), commit.getAuthorIdent());
+  }
+
+  @Test
+  public void cherryPickConflictingCommitTheTreeMergerDoesNotSupport_shouldWriteConflictsAndKeepTheMergedChanges() throws IOException {
+    clearCache();
+    writeToCache("/link", "a\nb\nc\n".getBytes(), SYMLINK);
+    AnyObjectId base = commit();
+    writeToCache("/link", "a\nb\nC\n".getBytes(), SYMLINK);
+    writeToCache("/other.txt", "other");
+    RevCommit symlinkChange = commitToBranch("symlink_feature", base);
+    clearCache();
+    writeToCache("/link", "a\nb\nX\n".getBytes(), SYMLINK);
+    commitToBranch("symlink_release", base);
+    gfs.close();
+    gfs = newFileSystem("symlink_release", repo);
+    Result result = cherryPick(gfs).commit(symlinkChange).execute();
+
+    assertEquals(CONFLICTING, result.getStatus());
+    assertTrue(result.getConflicts().containsKey("/link"));
+    assertTrue(exists(gfs.getPath("/other.txt")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cherryPickMergeCommitWithoutMainline_shouldThrowIllegalArgumentException() throws IOException {
+    cherryPick(gfs).commit(createMergeCommit()).execute();
+  }
+
+  @Test
+  public void cherryPickMergeCommitWithMainline_shouldApplyTheChangesRelativeToThatParent() throws IOException {
+    Result result = cherryPick(gfs).commit(createMergeCommit()).mainline(1).execute();
+
+    assertEquals(PICKED, result.getStatus());
+    assertTrue(exists(gfs.getPath("/feature_file.txt")));
+    assertEquals("line 1 changed\nline 2\nline 3\n", new String(readAllBytes(gfs.getPath("/test_file.txt"))));
+  }
+
+  @Test(expected = NoHeadCommitException.class)
+  public void cherryPickWhenBranchHasNoHeadCommit_shouldThrowNoHeadCommitException() throws IOException {
+    gfs.close();
+    gfs = newFileSystem(repo);
+    cherryPick(gfs).commit(picked).execute();
+  }
+
+  @Nonnull
+  private RevCommit createMergeCommit() throws IOException {
+    RevCommit base = getHeadCommit("release", repo).getParent(0);
+    RevCommit feature = getCommit(picked.getParent(0), repo);
+    PersonIdent person = somePersonIdent();
+    return createCommit("merge", feature.getTree(), person, person, Arrays.<AnyObjectId>asList(base, feature), repo);
+  }
+
+}
@@ -0,0 +1,128 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.filesystem.Gfs;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.GfsCommitConflictException;
+import com.beijunyi.parallelgit.utils.TreeUtils;
+import com.beijunyi.parallelgit.utils.exceptions.RefUpdateRejectedException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.beijunyi.parallelgit.filesystem.Gfs.*;
+import static com.beijunyi.parallelgit.utils.BranchUtils.getHeadCommit;
+import static java.nio.file.Files.*;
+import static org.eclipse.jgit.lib.FileMode.SYMLINK;
+import static org.junit.Assert.*;
+
+public class GfsCommitAutoRebaseTest extends AbstractParallelGitTest {
+
+  private GitFileSystem first;
+  private GitFileSystem second;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/test_file.txt", "some content");
+    commitToMaster();
+    first = newFileSystem("master", repo);
+    second = newFileSystem("master", repo);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    first.close();
+    second.close();
+  }
+
+  @Test
+  public void commitWhenBranchHasMovedWithNonOverlappingChanges_theCommitShouldBeRebasedOntoTheNewHead() throws IOException {
+    write(first.getPath("/file1.txt"), someBytes());
+    RevCommit firstCommit = Gfs.commit(first).execute().getCommit();
+    write(second.getPath("/file2.txt"), someBytes());
+    RevCommit secondCommit = Gfs.commit(second).autoRebase(3).execute().getCommit();
+
+    RevCommit head = getHeadCommit("master", repo);
+    assertEquals(secondCommit, head);
+    assertEquals(firstCommit, head.getParent(0));
+    assertTrue(TreeUtils.exists("file1.txt", head.getTree(), repo));
+    assertTrue(TreeUtils.exists("file2.txt", head.getTree(), repo));
+  }
+
+  @Test
+  public void commitWhenBranchHasMovedWithNonOverlappingChanges_theFileSystemShouldMatchTheNewHead() throws IOException {
+    write(first.getPath("/file1.txt"), someBytes());
+    Gfs.commit(first).execute();
+    write(second.getPath("/file2.txt"), someBytes());
+    RevCommit secondCommit = Gfs.commit(second).autoRebase(3).execute().getCommit();
+
+    assertEquals(secondCommit, second.getStatusProvider().commit());
+    assertTrue(exists(second.getPath("/file1.txt")));
+    assertFalse(second.getStatusProvider().isDirty());
+  }
+
+  @Test(expected = GfsCommitConflictException.class)
+  public void commitWhenBranchHasMovedWithOverlappingChanges_shouldThrowGfsCommitConflictException() throws IOException {
+    write(first.getPath("/test_file.txt"), "first change".getBytes());
+    Gfs.commit(first).execute();
+    write(second.getPath("/test_file.txt"), "second change".getBytes());
+    Gfs.commit(second).autoRebase(3).execute();
+  }
+
+  @Test
+  public void commitWhenBranchHasMovedWithChangesTheTreeMergerDoesNotSupport_theCommitShouldBeRebasedWithResolveMerger() throws IOException {
+    clearCache();
+    writeToCache("/link", "a\nb\nc\n".getBytes(), SYMLINK);
+    commitToMaster();
+    first.close();
+    second.close();
+    first = newFileSystem("master", repo);
+    second = newFileSystem("master", repo);
+    write(first.getPath("/link"), "A\nb\nc\n".getBytes());
+    Gfs.commit(first).execute();
+    write(second.getPath("/link"), "a\nb\nC\n".getBytes());
+    RevCommit commit = Gfs.commit(second).autoRebase(3).execute().getCommit();
+
+    assertEquals(commit, getHeadCommit("master", repo));
+    assertEquals("A\nb\nC\n", new String(readAllBytes(second.getPath("/link"))));
+  }
+
+  @Test(expected = RefUpdateRejectedException.class)
+  public void commitWhenBranchHasMovedWithoutAutoRebase_shouldThrowRefUpdateRejectedException() throws IOException {
+    write(first.getPath("/file1.txt"), someBytes());
+    Gfs.commit(first).execute();
+    write(second.getPath("/file2.txt"), someBytes());
+    Gfs.commit(second).execute();
+  }
+
+  @Test
+  public void commitWhenRebaseConflicts_theFileSystemShouldRemainDirty() throws IOException {
+    write(first.getPath("/test_file.txt"), "first change".getBytes());
+    Gfs.commit(first).execute();
+    write(second.getPath("/test_file.txt"), "second change".getBytes());
+    try {
+      Gfs.commit(second).autoRebase(3).execute();
+      fail();
+    } catch(GfsCommitConflictException e) {
+      assertTrue(second.getStatusProvider().isDirty());
+    }
+  }
+
+  @Test
+  public void commitWhenBranchUpdateIsRejected_theFileSystemShouldRemainDirty() throws IOException {
+    write(first.getPath("/file1.txt"), someBytes());
+    Gfs.commit(first).execute();
+    write(second.getPath("/file2.txt"), someBytes());
+    try {
+      Gfs.commit(second).execute();
+      fail();
+    } catch(RefUpdateRejectedException e) {
+      assertTrue(second.getStatusProvider().isDirty());
+    }
+  }
+
+}
@@ -1,7 +1,9 @@
 package com.beijunyi.parallelgit.filesystem.commands;
 
 import java.io.IOException;
+import java.nio.file.Files;
 
+import com.beijunyi.parallelgit.filesystem.Gfs;
 import com.beijunyi.parallelgit.filesystem.PreSetupGitFileSystemTest;
 import com.beijunyi.parallelgit.filesystem.commands.GfsCreateStash.Result;
 import com.beijunyi.parallelgit.filesystem.exceptions.UnsuccessfulOperationException;
@@ -13,6 +15,7 @@ import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Test;
 
 import static com.beijunyi.parallelgit.filesystem.Gfs.createStash;
+import static org.eclipse.jgit.util.RawParseUtils.decode;
 import static org.junit.Assert.*;
 
 public class GfsCreateStashTest extends PreSetupGitFileSystemTest {
@@ -93,4 +96,55 @@ public class GfsCreateStashTest extends PreSetupGitFileSystemTest {
     assertArrayEquals(expected, actual);
   }
 
+  @Test
+  public void stashNestedChanges_theTreeOfWorkDirCommitShouldContainOnlyTheStashedChangesOnTopOfHead() throws IOException {
+    writeToGfs("/dir/unchanged.txt", "unchanged");
+    writeToGfs("/dir/deleted.txt", "deleted");
+    Gfs.commit(gfs).execute();
+    writeToGfs("/dir/sub/added.txt", "added");
+    Files.delete(gfs.getPath("/dir/deleted.txt"));
+    RevCommit stash = createStash(gfs).execute().getCommit();
+
+    ObjectId tree = stash.getTree();
+    assertEquals("unchanged", decode(TreeUtils.readFile("/dir/unchanged.txt", tree, repo).getData()));
+    assertEquals("added", decode(TreeUtils.readFile("/dir/sub/added.txt", tree, repo).getData()));
+    assertFalse(TreeUtils.exists("/dir/deleted.txt", tree, repo));
+  }
+
+  @Test
+  public void stashFileChangedBackToItsOriginalContent_stashShouldBeUnsuccessful() throws IOException {
+    writeToGfs("/test_file.txt", "original");
+    Gfs.commit(gfs).execute();
+    writeToGfs("/test_file.txt", "changed");
+    writeToGfs("/test_file.txt", "original");
+    assertFalse(createStash(gfs).execute().isSuccessful());
+  }
+
+  @Test
+  public void stashDirectoryReplacedByFile_theTreeOfWorkDirCommitShouldContainTheFile() throws IOException {
+    writeToGfs("/a/b/c.txt", "c");
+    Gfs.commit(gfs).execute();
+    Files.delete(gfs.getPath("/a/b/c.txt"));
+    Files.delete(gfs.getPath("/a/b"));
+    writeToGfs("/a/b", "b");
+    RevCommit stash = createStash(gfs).execute().getCommit();
+
+    ObjectId tree = stash.getTree();
+    assertTrue(TreeUtils.isFile("/a/b", tree, repo));
+    assertEquals("b", decode(TreeUtils.readFile("/a/b", tree, repo).getData()));
+  }
+
+  @Test
+  public void stashFileReplacedByDirectory_theTreeOfWorkDirCommitShouldContainTheDirectory() throws IOException {
+    writeToGfs("/a/b", "b");
+    Gfs.commit(gfs).execute();
+    Files.delete(gfs.getPath("/a/b"));
+    writeToGfs("/a/b/c.txt", "c");
+    RevCommit stash = createStash(gfs).execute().getCommit();
+
+    ObjectId tree = stash.getTree();
+    assertTrue(TreeUtils.isDirectory("/a/b", tree, repo));
+    assertEquals("c", decode(TreeUtils.readFile("/a/b/c.txt", tree, repo).getData()));
+  }
+
 }
@@ -0,0 +1,120 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.filesystem.Gfs;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.filesystem.exceptions.GfsCommitConflictException;
+import com.beijunyi.parallelgit.utils.TreeUtils;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.beijunyi.parallelgit.filesystem.Gfs.newFileSystem;
+import static com.beijunyi.parallelgit.utils.BranchUtils.getHeadCommit;
+import static java.nio.file.Files.*;
+import static org.junit.Assert.*;
+
+public class GfsGroupCommitTest extends AbstractParallelGitTest {
+
+  private final List<GitFileSystem> sessions = new ArrayList<>();
+  private GfsGroupCommit group;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/test_file.txt", "some content");
+    commitToMaster();
+    group = Gfs.groupCommit(repo, "master");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for(GitFileSystem gfs : sessions)
+      gfs.close();
+  }
+
+  @Test
+  public void commitFromOneSession_branchHeadShouldBecomeTheNewCommit() throws IOException {
+    GitFileSystem gfs = newSession();
+    write(gfs.getPath("/new_file.txt"), someBytes());
+    GfsCommit.Result result = group.commit(gfs, "some message");
+
+    assertTrue(result.isSuccessful());
+    assertEquals(result.getCommit(), getHeadCommit("master", repo));
+    assertEquals(result.getCommit(), gfs.getStatusProvider().commit());
+    assertFalse(gfs.getStatusProvider().isDirty());
+  }
+
+  @Test
+  public void commitFromStaleSessionWithNonOverlappingChanges_changesShouldBeCombined() throws IOException {
+    GitFileSystem first = newSession();
+    GitFileSystem second = newSession();
+    write(first.getPath("/file1.txt"), someBytes());
+    write(second.getPath("/file2.txt"), someBytes());
+    group.commit(first, "first");
+    GfsCommit.Result result = group.commit(second, "second");
+
+    RevCommit head = getHeadCommit("master", repo);
+    assertEquals(result.getCommit(), head);
+    assertTrue(TreeUtils.exists("file1.txt", head.getTree(), repo));
+    assertTrue(TreeUtils.exists("file2.txt", head.getTree(), repo));
+    assertTrue(exists(second.getPath("/file1.txt")));
+  }
+
+  @Test(expected = GfsCommitConflictException.class)
+  public void commitFromStaleSessionWithConflictingChanges_shouldThrowGfsCommitConflictException() throws IOException {
+    GitFileSystem first = newSession();
+    GitFileSystem second = newSession();
+    write(first.getPath("/test_file.txt"), "first change".getBytes());
+    write(second.getPath("/test_file.txt"), "second change".getBytes());
+    group.commit(first, "first");
+    group.commit(second, "second");
+  }
+
+  @Test
+  public void commitFromManyThreads_allChangesShouldBeCommitted() throws Exception {
+    int count = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(count);
+    try {
+      List<Future<GfsCommit.Result>> futures = new ArrayList<>();
+      for(int i = 0; i < count; i++) {
+        final GitFileSystem gfs = newSession();
+        write(gfs.getPath("/file" + i + ".txt"), someBytes());
+        futures.add(executor.submit(new Callable<GfsCommit.Result>() {
+          @Override
+          public GfsCommit.Result call() throws Exception {
+            return group.commit(gfs, "concurrent commit");
+          }
+        }));
+      }
+      for(Future<GfsCommit.Result> future : futures)
+        assertTrue(future.get().isSuccessful());
+    } finally {
+      executor.shutdown();
+    }
+    RevCommit head = getHeadCommit("master", repo);
+    for(int i = 0; i < count; i++)
+      assertTrue(TreeUtils.exists("file" + i + ".txt", head.getTree(), repo));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void commitFromSessionWithoutHeadCommit_shouldThrowIllegalArgumentException() throws IOException {
+    GitFileSystem gfs = newFileSystem("new_branch", repo);
+    sessions.add(gfs);
+    write(gfs.getPath("/new_file.txt"), someBytes());
+    Gfs.groupCommit(repo, "new_branch").commit(gfs, "some message");
+  }
+
+  private GitFileSystem newSession() throws IOException {
+    GitFileSystem ret = newFileSystem("master", repo);
+    sessions.add(ret);
+    return ret;
+  }
+
+}
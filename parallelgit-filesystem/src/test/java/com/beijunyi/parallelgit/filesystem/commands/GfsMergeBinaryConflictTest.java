@@ -0,0 +1,59 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+
+import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
+import com.beijunyi.parallelgit.filesystem.ParallelGitMergeTest;
+import com.beijunyi.parallelgit.filesystem.commands.GfsMerge.Result;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.beijunyi.parallelgit.filesystem.Gfs.*;
+import static com.beijunyi.parallelgit.filesystem.commands.GfsMerge.Status.CONFLICTING;
+import static org.eclipse.jgit.lib.Constants.encodeASCII;
+import static org.junit.Assert.*;
+
+public class GfsMergeBinaryConflictTest extends AbstractGitFileSystemTest implements ParallelGitMergeTest {
+
+  private AnyObjectId base;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/test_file.bin", encodeASCII("a\0\nb\nc\nd\ne"));
+    base = commit();
+    writeToCache("/test_file.bin", encodeASCII("a\0\nB\nc\nd\ne"));
+    commitToBranch(OURS, base);
+    writeToCache("/test_file.bin", encodeASCII("a\0\nb\nc\nD\ne"));
+    commitToBranch(THEIRS, base);
+    gfs = newFileSystem(OURS, repo);
+  }
+
+  @Test
+  public void whenBothBranchesChangeBinaryFile_statusShouldBeConflicting() throws IOException {
+    Result result = merge(gfs).source(THEIRS).execute();
+    assertEquals(CONFLICTING, result.getStatus());
+    assertTrue(result.getConflicts().containsKey("/test_file.bin"));
+  }
+
+  @Test
+  public void whenBothBranchesChangeBinaryFile_theFileShouldKeepOurContent() throws IOException {
+    merge(gfs).source(THEIRS).execute();
+    assertEquals("a\0\nB\nc\nd\ne", readAsString(gfs.getPath("/test_file.bin")));
+  }
+
+  @Test
+  public void whenOurBranchDeletesBinaryFileChangedByTheirs_theFileShouldKeepTheirContent() throws IOException {
+    clearCache();
+    writeToCache("/other_file.txt");
+    commitToBranch("deleted", base);
+    gfs.close();
+    gfs = newFileSystem("deleted", repo);
+    Result result = merge(gfs).source(THEIRS).execute();
+    assertEquals(CONFLICTING, result.getStatus());
+    assertTrue(result.getConflicts().containsKey("/test_file.bin"));
+    assertEquals("a\0\nb\nc\nD\ne", readAsString(gfs.getPath("/test_file.bin")));
+  }
+
+}
@@ -1,6 +1,7 @@
 package com.beijunyi.parallelgit.filesystem.commands;
 
 import java.io.IOException;
+import java.nio.file.Files;
 
 import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
 import com.beijunyi.parallelgit.filesystem.GitFileSystem;
@@ -54,6 +55,13 @@ public class GfsMergeConflictingMergeTest extends AbstractGitFileSystemTest impl
                  ">>>>>>> refs/heads/theirs\n", readAsString(gfs.getPath("/test_file.txt")));
   }
 
+  @Test
+  public void whenSourceBranchHasConflictingFile_theSizeOfTheConflictingFileShouldBeTheSizeOfTheFormattedContent() throws IOException {
+    merge(gfs).source(THEIRS).execute();
+    long size = Files.size(gfs.getPath("/test_file.txt"));
+    assertEquals(readAsString(gfs.getPath("/test_file.txt")).getBytes().length, size);
+  }
+
   @Test
   public void whenConflictIsEncountered_mergeNoteShouldHaveTheSourceBranchHead() throws IOException {
     merge(gfs).source(THEIRS).execute();
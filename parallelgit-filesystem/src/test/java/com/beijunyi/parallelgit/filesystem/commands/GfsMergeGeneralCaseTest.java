@@ -18,6 +18,7 @@ import static com.beijunyi.parallelgit.filesystem.Gfs.*;
 import static com.beijunyi.parallelgit.filesystem.commands.GfsMerge.Result;
 import static com.beijunyi.parallelgit.filesystem.commands.GfsMerge.Status.*;
 import static com.beijunyi.parallelgit.utils.BranchUtils.getHeadCommit;
+import static com.beijunyi.parallelgit.utils.TreeUtils.getObjectId;
 import static java.nio.file.Files.*;
 import static org.junit.Assert.*;
 
@@ -116,6 +117,30 @@ public class GfsMergeGeneralCaseTest extends AbstractParallelGitTest implements
     assertArrayEquals(expected, readAllBytes(gfs.getPath("/our_file.txt")));
   }
 
+  @Test
+  public void mergeWhenOnlySourceBranchChangesDirectory_theDirectoryShouldBeTakenFromSourceBranch() throws IOException {
+    clearCache();
+    writeToCache("/dir/some_file.txt");
+    writeToCache("/dir/sub/some_file.txt");
+    commitToBranch(THEIRS);
+    Result result = merge(gfs).source(THEIRS).execute();
+
+    assertTrue(result.isSuccessful());
+    AnyObjectId theirs = getHeadCommit(THEIRS, repo).getTree();
+    assertEquals(getObjectId("dir", theirs, repo), getObjectId("dir", result.getCommit().getTree(), repo));
+  }
+
+  @Test
+  public void mergeWithNonConflictingLocalChanges_localChangesShouldBeKept() throws IOException {
+    byte[] expected = someBytes();
+    write(gfs.getPath("/local_file.txt"), expected);
+    Result result = merge(gfs).source(THEIRS).commit(false).execute();
+
+    assertEquals(MERGED_NOT_COMMITTED, result.getStatus());
+    assertTrue(exists(gfs.getPath("/their_file.txt")));
+    assertArrayEquals(expected, readAllBytes(gfs.getPath("/local_file.txt")));
+  }
+
   @Test(expected = NoBranchException.class)
   public void mergeWhenFileSystemIsNotAttached_shouldThrowNoBranchException() throws IOException {
     gfs = newFileSystem(getHeadCommit(THEIRS, repo), repo);
@@ -0,0 +1,135 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.filesystem.GitFileSystem;
+import com.beijunyi.parallelgit.utils.TreeUtils;
+import com.beijunyi.parallelgit.utils.exceptions.NoSuchBranchException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.beijunyi.parallelgit.filesystem.Gfs.*;
+import static com.beijunyi.parallelgit.filesystem.commands.GfsRebase.Result;
+import static com.beijunyi.parallelgit.filesystem.commands.GfsRebase.Status.*;
+import static com.beijunyi.parallelgit.utils.BranchUtils.getHeadCommit;
+import static com.beijunyi.parallelgit.utils.CommitUtils.getCommit;
+import static java.nio.file.Files.*;
+import static org.junit.Assert.*;
+
+public class GfsRebaseTest extends AbstractParallelGitTest {
+
+  private GitFileSystem gfs;
+  private AnyObjectId base;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/test_file.txt", "line 1\nline 2\nline 3\n");
+    writeToCache("/patch/some_file.txt", "some content");
+    base = commit();
+    writeToCache("/patch/patch_file_1.txt");
+    commitToBranch("patch", base);
+    writeToCache("/patch/patch_file_2.txt");
+    commitToBranch("patch");
+    clearCache();
+    writeToCache("/test_file.txt", "line 1 changed\nline 2\nline 3\n");
+    writeToCache("/patch/some_file.txt", "some content");
+    writeToCache("/main_file.txt");
+    commitToBranch("main", base);
+    gfs = newFileSystem("patch", repo);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if(gfs != null) {
+      gfs.close();
+      gfs = null;
+    }
+  }
+
+  @Test
+  public void rebaseOntoUpstream_theCommitsShouldBeReplayedOnTopOfUpstream() throws IOException {
+    RevCommit oldHead = getHeadCommit("patch", repo);
+    RevCommit main = getHeadCommit("main", repo);
+    Result result = rebase(gfs).upstream("main").execute();
+
+    assertEquals(REBASED, result.getStatus());
+    RevCommit newHead = getHeadCommit("patch", repo);
+    assertEquals(result.getCommit(), newHead);
+    assertEquals(main, getCommit(newHead.getParent(0), repo).getParent(0));
+    assertEquals(oldHead.getFullMessage(), newHead.getFullMessage());
+    assertEquals(newHead, gfs.getStatusProvider().commit());
+  }
+
+  @Test
+  public void rebaseOntoUpstream_theFileSystemShouldContainChangesFromBothBranches() throws IOException {
+    rebase(gfs).upstream("main").execute();
+
+    assertTrue(exists(gfs.getPath("/main_file.txt")));
+    assertTrue(exists(gfs.getPath("/patch/patch_file_1.txt")));
+    assertTrue(exists(gfs.getPath("/patch/patch_file_2.txt")));
+    assertEquals("line 1 changed\nline 2\nline 3\n", new String(readAllBytes(gfs.getPath("/test_file.txt"))));
+  }
+
+  @Test
+  public void rebaseWhenUpstreamDoesNotTouchChangedDirectory_theDirectoryShouldBeReused() throws IOException {
+    RevCommit oldHead = getHeadCommit("patch", repo);
+    Result result = rebase(gfs).upstream("main").execute();
+
+    AnyObjectId tree = result.getCommit().getTree();
+    assertEquals(TreeUtils.getObjectId("patch", oldHead.getTree(), repo), TreeUtils.getObjectId("patch", tree, repo));
+  }
+
+  @Test
+  public void rebaseWhenBranchIsBasedOnUpstream_theResultShouldBeUpToDate() throws IOException {
+    RevCommit head = getHeadCommit("patch", repo);
+    Result result = rebase(gfs).upstream(base).execute();
+
+    assertEquals(UP_TO_DATE, result.getStatus());
+    assertEquals(head, getHeadCommit("patch", repo));
+  }
+
+  @Test
+  public void rebaseWithConflictingCommit_branchShouldNotChange() throws IOException {
+    writeToCache("/patch/patch_file_1.txt", "conflicting");
+    commitToBranch("main");
+    RevCommit head = getHeadCommit("patch", repo);
+    Result result = rebase(gfs).upstream("main").execute();
+
+    assertEquals(CONFLICTING, result.getStatus());
+    assertNotNull(result.getConflictingCommit());
+    assertTrue(result.getConflicts().containsKey("/patch/patch_file_1.txt"));
+    assertEquals(head, getHeadCommit("patch", repo));
+  }
+
+  @Test
+  public void rebaseBranchWithRootCommit_theRootCommitShouldBeReplayedOnTopOfUpstream() throws IOException {
+    clearCache();
+    writeToCache("/orphan_file.txt");
+    commitToBranch("orphan", null);
+    gfs.close();
+    gfs = newFileSystem("orphan", repo);
+    Result result = rebase(gfs).upstream("main").execute();
+
+    assertEquals(REBASED, result.getStatus());
+    RevCommit newHead = getHeadCommit("orphan", repo);
+    assertEquals(getHeadCommit("main", repo), newHead.getParent(0));
+    assertTrue(exists(gfs.getPath("/orphan_file.txt")));
+    assertTrue(exists(gfs.getPath("/main_file.txt")));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void rebaseWithoutUpstream_shouldThrowIllegalStateException() throws IOException {
+    rebase(gfs).execute();
+  }
+
+  @Test(expected = NoSuchBranchException.class)
+  public void rebaseOntoNonExistentUpstream_shouldThrowNoSuchBranchException() throws IOException {
+    rebase(gfs).upstream("non_existent_branch").execute();
+  }
+
+}
@@ -2,6 +2,8 @@ package com.beijunyi.parallelgit.filesystem.commands;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 
 import com.beijunyi.parallelgit.filesystem.Gfs;
 import com.beijunyi.parallelgit.filesystem.PreSetupGitFileSystemTest;
@@ -10,6 +12,7 @@ import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Test;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static org.junit.Assert.*;
 
 public class GfsResetTest extends PreSetupGitFileSystemTest {
@@ -125,5 +128,28 @@ public class GfsResetTest extends PreSetupGitFileSystemTest {
     assertNull(status.mergeNote());
   }
 
+  @Test
+  public void resetToRevisionWhenNestedFilesAreLoaded_fileSystemShouldMatchTheRevision() throws IOException {
+    writeToCache("/dir/sub/file.txt", "new content");
+    ObjectId revision = commit(status.commit());
+    writeToGfs("/dir/other_file.txt", "local content");
+    assertTrue(Files.exists(gfs.getPath("/dir/other_file.txt")));
+    GfsReset.Result result = Gfs.reset(gfs).revision(revision.getName()).execute();
+
+    assertTrue(result.isSuccessful());
+    assertEquals("new content", readAsString(gfs.getPath("/dir/sub/file.txt")));
+    assertFalse(Files.exists(gfs.getPath("/dir/other_file.txt")));
+    assertFalse(status.isDirty());
+  }
+
+  @Test
+  public void resetWhenSubdirectoryIsWatched_watchKeyShouldBeInvalidated() throws IOException {
+    writeToGfs("/dir/file.txt");
+    try(WatchService watcher = gfs.newWatchService()) {
+      WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_CREATE);
+      Gfs.reset(gfs).execute();
+      assertFalse(key.isValid());
+    }
+  }
 
 }
@@ -0,0 +1,86 @@
+package com.beijunyi.parallelgit.filesystem.commands;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
+import com.beijunyi.parallelgit.filesystem.Gfs;
+import com.beijunyi.parallelgit.filesystem.io.FileStatus;
+import com.beijunyi.parallelgit.utils.io.BlobSnapshot;
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.delete;
+import static org.junit.Assert.*;
+
+public class GfsStatusTest extends AbstractGitFileSystemTest {
+
+  @Before
+  public void setUp() throws IOException {
+    initGitFileSystem("/test_file.txt", "/dir/file.txt", "/dir/sub/file.txt", "/other/file.txt");
+  }
+
+  @Test
+  public void statusWhenThereIsNoLocalChange_resultShouldBeClean() throws IOException {
+    GfsStatus.Result result = Gfs.status(gfs).execute();
+    assertTrue(result.isClean());
+  }
+
+  @Test
+  public void statusAfterAddingFile_theFileShouldBeAdded() throws IOException {
+    writeToGfs("/dir/new_file.txt");
+    List<FileStatus> added = Gfs.status(gfs).execute().getAdded();
+
+    assertEquals(1, added.size());
+    assertEquals("/dir/new_file.txt", added.get(0).getPath());
+    assertTrue(added.get(0).getOldEntry().isMissing());
+  }
+
+  @Test
+  public void statusAfterModifyingFile_theFileShouldBeModified() throws IOException {
+    GitFileEntry before = GitFileEntry.newEntry("dir/sub/file.txt", status.commit().getTree(), repo);
+    writeToGfs("/dir/sub/file.txt", "new content");
+    GfsStatus.Result result = Gfs.status(gfs).execute();
+
+    assertEquals(1, result.getChanges().size());
+    FileStatus modified = result.getModified().get(0);
+    assertEquals("/dir/sub/file.txt", modified.getPath());
+    assertEquals(before, modified.getOldEntry());
+    assertEquals(BlobSnapshot.capture("new content".getBytes()).getId(), modified.getNewEntry().getId());
+  }
+
+  @Test
+  public void statusAfterDeletingFile_theFileShouldBeDeleted() throws IOException {
+    delete(gfs.getPath("/dir/file.txt"));
+    List<FileStatus> deleted = Gfs.status(gfs).execute().getDeleted();
+
+    assertEquals(1, deleted.size());
+    assertEquals("/dir/file.txt", deleted.get(0).getPath());
+    assertTrue(deleted.get(0).getNewEntry().isMissing());
+  }
+
+  @Test
+  public void statusAfterDeletingDirectory_allFilesInTheDirectoryShouldBeDeleted() throws IOException {
+    delete(gfs.getPath("/dir/sub/file.txt"));
+    delete(gfs.getPath("/dir/sub"));
+    delete(gfs.getPath("/dir/file.txt"));
+    delete(gfs.getPath("/dir"));
+    GfsStatus.Result result = Gfs.status(gfs).execute();
+
+    assertEquals(2, result.getDeleted().size());
+    assertTrue(result.getChanges().containsKey("/dir/file.txt"));
+    assertTrue(result.getChanges().containsKey("/dir/sub/file.txt"));
+  }
+
+  @Test
+  public void statusAfterReplacingFileWithDirectory_theFileShouldBeDeletedAndTheNewFilesAdded() throws IOException {
+    delete(gfs.getPath("/test_file.txt"));
+    writeToGfs("/test_file.txt/file.txt");
+    GfsStatus.Result result = Gfs.status(gfs).execute();
+
+    assertEquals(FileStatus.Type.DELETED, result.getChanges().get("/test_file.txt").getType());
+    assertEquals(FileStatus.Type.ADDED, result.getChanges().get("/test_file.txt/file.txt").getType());
+  }
+
+}
@@ -122,6 +122,27 @@ public class GfsChangesCollectorTest extends AbstractGitFileSystemTest {
     assertArrayEquals(expected, Files.readAllBytes(gfs.getPath("/test_file.txt")));
   }
 
+  @Test
+  public void collectAndApplyChangesToDirectoryAndItsChildren_allChangesShouldBeApplied() throws IOException {
+    initGitFileSystem("/dir/some_file.txt");
+    byte[] expected = someBytes();
+    changes.addChange("/dir", newDirectoryEntry("child1.txt", "child2.txt"));
+    changes.addChange("/dir/child1.txt", expected, REGULAR_FILE);
+    changes.addChange("/dir/sub/deep/child3.txt", someFileEntry());
+    changes.applyTo(gfs);
+    assertArrayEquals(expected, Files.readAllBytes(gfs.getPath("/dir/child1.txt")));
+    assertTrue(Files.exists(gfs.getPath("/dir/child2.txt")));
+    assertTrue(Files.exists(gfs.getPath("/dir/sub/deep/child3.txt")));
+    assertFalse(Files.exists(gfs.getPath("/dir/some_file.txt")));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void collectTwoChangesForTheSamePath_shouldThrowIllegalStateException() throws IOException {
+    initGitFileSystem();
+    changes.addChange("/dir/test_file.txt", someBytes(), REGULAR_FILE);
+    changes.addChange("/dir/test_file.txt", someBytes(), REGULAR_FILE);
+  }
+
   @Nonnull
   private GitFileEntry newFileEntry(byte[] bytes) throws IOException {
     ObjectId blobId = BlobUtils.insertBlob(bytes, repo);
@@ -154,4 +175,45 @@ public class GfsChangesCollectorTest extends AbstractGitFileSystemTest {
     return newDirectoryEntry(someFilename());
   }
 
+  @Test
+  public void collectAndApplyProvidedFile_theContentShouldNotBeLoadedBeforeTheFileIsRead() throws IOException {
+    initGitFileSystem();
+    CountingProvider provider = new CountingProvider(someBytes());
+    changes.addChange("/test_file.txt", provider, REGULAR_FILE);
+    changes.applyTo(gfs);
+    assertEquals(0, provider.count);
+    assertTrue(Files.isRegularFile(gfs.getPath("/test_file.txt")));
+  }
+
+  @Test
+  public void readProvidedFileMultipleTimes_theContentShouldBeLoadedOnce() throws IOException {
+    initGitFileSystem();
+    byte[] expected = someBytes();
+    CountingProvider provider = new CountingProvider(expected);
+    changes.addChange("/test_file.txt", provider, REGULAR_FILE);
+    changes.applyTo(gfs);
+    assertArrayEquals(expected, Files.readAllBytes(gfs.getPath("/test_file.txt")));
+    assertArrayEquals(expected, Files.readAllBytes(gfs.getPath("/test_file.txt")));
+    assertEquals(expected.length, Files.size(gfs.getPath("/test_file.txt")));
+    assertEquals(1, provider.count);
+  }
+
+  private static class CountingProvider implements FileContentProvider {
+
+    private final byte[] content;
+    private int count = 0;
+
+    private CountingProvider(byte[] content) {
+      this.content = content;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getContent() {
+      count++;
+      return content;
+    }
+
+  }
+
 }
@@ -3,6 +3,9 @@ package com.beijunyi.parallelgit.filesystem.io;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nonnull;
 
 import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
@@ -10,12 +13,14 @@ import com.beijunyi.parallelgit.filesystem.exceptions.GfsCheckoutConflictExcepti
 import com.beijunyi.parallelgit.filesystem.test.NioUtils;
 import com.beijunyi.parallelgit.utils.BlobUtils;
 import com.beijunyi.parallelgit.utils.CacheUtils;
+import com.beijunyi.parallelgit.utils.TreeUtils;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectId;
 import org.junit.Test;
 
 import static java.nio.file.Files.createDirectories;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static org.eclipse.jgit.lib.FileMode.REGULAR_FILE;
 import static org.junit.Assert.*;
 
@@ -165,6 +170,148 @@ public class GfsDefaultCheckoutTreeTest extends AbstractGitFileSystemTest {
     assertArrayEquals(expected, Files.readAllBytes(gfs.getPath("/test_file.txt")));
   }
 
+  @Test
+  public void modifiedDirectoryWithNonConflictingTargetChanges_shouldKeepBothChanges() throws IOException {
+    initRepository();
+    writeToCache("/dir/file1.txt");
+    byte[] file2 = someBytes();
+    writeToCache("/dir/file2.txt", file2);
+    commitToMaster();
+    initGitFileSystem();
+
+    byte[] local = someBytes();
+    Files.write(gfs.getPath("/dir/file1.txt"), local);
+    byte[] expected = someBytes();
+    writeToCache("/dir/file2.txt", expected);
+    AnyObjectId target = CacheUtils.writeTree(cache, repo);
+
+    new GfsDefaultCheckout(gfs).checkout(target);
+    assertArrayEquals(local, Files.readAllBytes(gfs.getPath("/dir/file1.txt")));
+    assertArrayEquals(expected, Files.readAllBytes(gfs.getPath("/dir/file2.txt")));
+  }
+
+  @Test
+  public void modifiedDirectoryUnchangedInTarget_shouldKeepLocalChanges() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt");
+    writeToCache("/other/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+
+    byte[] local = someBytes();
+    Files.write(gfs.getPath("/dir/file.txt"), local);
+    byte[] expected = someBytes();
+    writeToCache("/other/file.txt", expected);
+    AnyObjectId target = CacheUtils.writeTree(cache, repo);
+
+    new GfsDefaultCheckout(gfs).checkout(target);
+    assertArrayEquals(local, Files.readAllBytes(gfs.getPath("/dir/file.txt")));
+    assertArrayEquals(expected, Files.readAllBytes(gfs.getPath("/other/file.txt")));
+  }
+
+  @Test
+  public void targetChangesInManyTopLevelDirectories_allChangesShouldBeApplied() throws IOException {
+    initRepository();
+    for(int i = 0; i < 8; i++)
+      writeToCache("/dir" + i + "/sub/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+
+    byte[][] expected = new byte[8][];
+    for(int i = 0; i < 8; i++) {
+      expected[i] = someBytes();
+      writeToCache("/dir" + i + "/sub/file.txt", expected[i]);
+    }
+    AnyObjectId target = CacheUtils.writeTree(cache, repo);
+
+    new GfsDefaultCheckout(gfs).checkout(target);
+    for(int i = 0; i < 8; i++)
+      assertArrayEquals(expected[i], Files.readAllBytes(gfs.getPath("/dir" + i + "/sub/file.txt")));
+  }
+
+  @Test
+  public void conflictsInManyTopLevelDirectories_conflictsShouldBeSortedByPath() throws IOException {
+    initRepository();
+    for(int i = 0; i < 8; i++)
+      writeToCache("/dir" + i + "/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+
+    for(int i = 0; i < 8; i++) {
+      Files.write(gfs.getPath("/dir" + i + "/file.txt"), someBytes());
+      writeToCache("/dir" + i + "/file.txt");
+    }
+    AnyObjectId target = CacheUtils.writeTree(cache, repo);
+
+    GfsDefaultCheckout checkout = new GfsDefaultCheckout(gfs, false);
+    checkout.checkout(target);
+    List<String> conflicts = new ArrayList<>(checkout.getConflicts().keySet());
+    assertEquals(8, conflicts.size());
+    for(int i = 0; i < 8; i++)
+      assertEquals("/dir" + i + "/file.txt", conflicts.get(i));
+  }
+
+  @Test
+  public void cleanDirectoryChangedInTarget_directoryShouldBeReplacedWithoutLoadingChildren() throws IOException {
+    initRepository();
+    writeToCache("/dir/sub/file.txt");
+    writeToCache("/dir/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    assertTrue(Files.exists(gfs.getPath("/dir/sub/file.txt")));
+    Node before = gfs.getFileStore().getRoot().getChild("dir");
+
+    writeToCache("/dir/file.txt");
+    AnyObjectId target = CacheUtils.writeTree(cache, repo);
+    new GfsDefaultCheckout(gfs).checkout(target);
+
+    Node after = gfs.getFileStore().getRoot().getChild("dir");
+    assertNotNull(after);
+    assertNotSame(before, after);
+    assertFalse(after.isInitialized());
+    assertEquals(TreeUtils.getObjectId("dir", target, repo), after.getObjectId(false));
+  }
+
+  @Test
+  public void loadedCleanDirectoryChangedInTargetWithoutWatches_newDirectoryShouldStayUnloaded() throws IOException {
+    initRepository();
+    writeToCache("/dir/sub/deep/file.txt");
+    writeToCache("/dir/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    assertTrue(Files.exists(gfs.getPath("/dir/sub/deep/file.txt")));
+
+    writeToCache("/dir/file.txt");
+    AnyObjectId target = CacheUtils.writeTree(cache, repo);
+    new GfsDefaultCheckout(gfs).checkout(target);
+
+    Node after = gfs.getFileStore().getRoot().getChild("dir");
+    assertNotNull(after);
+    assertFalse(after.isInitialized());
+  }
+
+  @Test
+  public void loadedCleanDirectoryChangedInTargetWhenAnotherDirectoryIsWatched_newDirectoryShouldStayUnloaded() throws IOException {
+    initRepository();
+    writeToCache("/dir/sub/file.txt");
+    writeToCache("/dir/file.txt");
+    writeToCache("/other/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    assertTrue(Files.exists(gfs.getPath("/dir/sub/file.txt")));
+
+    try(WatchService watcher = gfs.newWatchService()) {
+      gfs.getPath("/other").register(watcher, ENTRY_CREATE);
+      writeToCache("/dir/file.txt");
+      AnyObjectId target = CacheUtils.writeTree(cache, repo);
+      new GfsDefaultCheckout(gfs).checkout(target);
+
+      Node after = gfs.getFileStore().getRoot().getChild("dir");
+      assertNotNull(after);
+      assertFalse(after.isInitialized());
+    }
+  }
+
   private void clearWorktree() throws IOException {
     Files.walkFileTree(gfs.getRootPath(), NioUtils.RECURSIVE_DELETE);
   }
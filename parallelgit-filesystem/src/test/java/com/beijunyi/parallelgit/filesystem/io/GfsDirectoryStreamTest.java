@@ -2,10 +2,13 @@ package com.beijunyi.parallelgit.filesystem.io;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
+import com.beijunyi.parallelgit.filesystem.GitPath;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -68,4 +71,78 @@ public class GfsDirectoryStreamTest extends AbstractGitFileSystemTest {
     ds.close();
     ds.iterator().next();
   }
+
+  @Test
+  public void pathReturnedFromDirectoryStream_shouldCarryTheChildNode() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    try(DirectoryStream<Path> ds = Files.newDirectoryStream(gfs.getPath("/dir"))) {
+      GitPath file = (GitPath) ds.iterator().next();
+      assertNotNull(GfsIO.getCachedNode(file));
+      assertTrue(Files.isRegularFile(file));
+    }
+  }
+
+  @Test(expected = NoSuchFileException.class)
+  public void readAttributesOfPathFromDirectoryStreamAfterFileIsDeleted_shouldThrowNoSuchFileException() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    Path file;
+    try(DirectoryStream<Path> ds = Files.newDirectoryStream(gfs.getPath("/dir"))) {
+      file = ds.iterator().next();
+    }
+    Files.delete(gfs.getPath("/dir/file.txt"));
+    Files.readAttributes(file, BasicFileAttributes.class);
+  }
+
+  @Test
+  public void readAttributesOfPathFromDirectoryStreamAfterFileIsReplaced_shouldReturnAttributesOfTheNewFile() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    Path file;
+    try(DirectoryStream<Path> ds = Files.newDirectoryStream(gfs.getPath("/dir"))) {
+      file = ds.iterator().next();
+    }
+    Files.delete(gfs.getPath("/dir/file.txt"));
+    Files.createDirectory(gfs.getPath("/dir/file.txt"));
+    assertNull(GfsIO.getCachedNode((GitPath) file));
+    assertTrue(Files.readAttributes(file, BasicFileAttributes.class).isDirectory());
+  }
+
+  @Test
+  public void readAttributesOfPathFromDirectoryStreamAfterParentIsReplaced_shouldReturnAttributesOfTheNewFile() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    Path file;
+    try(DirectoryStream<Path> ds = Files.newDirectoryStream(gfs.getPath("/dir"))) {
+      file = ds.iterator().next();
+    }
+    Files.delete(gfs.getPath("/dir/file.txt"));
+    Files.delete(gfs.getPath("/dir"));
+    Files.createDirectories(gfs.getPath("/dir/file.txt"));
+    assertNull(GfsIO.getCachedNode((GitPath) file));
+    assertTrue(Files.readAttributes(file, BasicFileAttributes.class).isDirectory());
+  }
+
+  @Test(expected = NoSuchFileException.class)
+  public void readAttributesFromSecureDirectoryStreamViewOfNonExistentFile_shouldThrowNoSuchFileException() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    try(DirectoryStream<Path> ds = Files.newDirectoryStream(gfs.getPath("/dir"))) {
+      BasicFileAttributeView view = ((SecureDirectoryStream<Path>) ds).getFileAttributeView(gfs.getPath("non_existent.txt"), BasicFileAttributeView.class);
+      assertNotNull(view);
+      view.readAttributes();
+    }
+  }
+
 }
@@ -0,0 +1,106 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
+import com.beijunyi.parallelgit.utils.DiffUtils;
+import com.beijunyi.parallelgit.utils.io.TreeChange;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GfsRenameDetectorTest extends AbstractGitFileSystemTest {
+
+  private RevTree oldTree;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/exact.txt", lines("exact", 20));
+    writeToCache("/similar.txt", lines("similar", 20));
+    writeToCache("/modified.txt", lines("modified", 20));
+    oldTree = commit().getTree();
+    clearCache();
+    initGitFileSystem();
+  }
+
+  @Test
+  public void detectWhenFileIsMovedWithoutChange_shouldReturnExactRename() throws IOException {
+    writeToCache("/moved.txt", lines("exact", 20));
+    writeToCache("/similar.txt", lines("similar", 20));
+    writeToCache("/modified.txt", lines("modified", 20));
+    List<FileRename> renames = detect(new GfsRenameDetector(objService));
+
+    assertEquals(1, renames.size());
+    assertEquals("/exact.txt", renames.get(0).getOldPath());
+    assertEquals("/moved.txt", renames.get(0).getNewPath());
+    assertEquals(100, renames.get(0).getScore());
+    assertFalse(renames.get(0).isCopy());
+  }
+
+  @Test
+  public void detectWhenFileIsMovedWithSmallChange_shouldReturnInexactRename() throws IOException {
+    writeToCache("/exact.txt", lines("exact", 20));
+    writeToCache("/renamed.txt", lines("similar", 19) + "changed\n");
+    writeToCache("/modified.txt", lines("modified", 20));
+    List<FileRename> renames = detect(new GfsRenameDetector(objService));
+
+    assertEquals(1, renames.size());
+    assertEquals("/similar.txt", renames.get(0).getOldPath());
+    assertEquals("/renamed.txt", renames.get(0).getNewPath());
+    assertTrue(renames.get(0).getScore() < 100);
+  }
+
+  @Test
+  public void detectWhenScoreIsBelowThreshold_shouldReturnNoRename() throws IOException {
+    writeToCache("/exact.txt", lines("exact", 20));
+    writeToCache("/renamed.txt", lines("similar", 5) + lines("different", 15));
+    writeToCache("/modified.txt", lines("modified", 20));
+    List<FileRename> renames = detect(new GfsRenameDetector(objService).renameScore(90));
+
+    assertTrue(renames.isEmpty());
+  }
+
+  @Test
+  public void detectCopiesWhenModifiedFileIsCopied_shouldReturnCopy() throws IOException {
+    writeToCache("/exact.txt", lines("exact", 20));
+    writeToCache("/similar.txt", lines("similar", 20));
+    writeToCache("/modified.txt", lines("modified", 19) + "changed\n");
+    writeToCache("/copied.txt", lines("modified", 20));
+    List<FileRename> renames = detect(new GfsRenameDetector(objService).detectCopies(true));
+
+    assertEquals(1, renames.size());
+    assertEquals("/modified.txt", renames.get(0).getOldPath());
+    assertEquals("/copied.txt", renames.get(0).getNewPath());
+    assertTrue(renames.get(0).isCopy());
+  }
+
+  @Test
+  public void detectInParallel_shouldReturnTheSameRenamesAsSequentialDetection() throws IOException {
+    writeToCache("/moved.txt", lines("exact", 20));
+    writeToCache("/renamed.txt", lines("similar", 19) + "changed\n");
+    writeToCache("/modified.txt", lines("modified", 20));
+    RevTree newTree = commit().getTree();
+    List<TreeChange> changes = DiffUtils.getChanges(oldTree, newTree, repo);
+
+    List<FileRename> sequential = new GfsRenameDetector(objService).parallelism(1).detect(changes);
+    List<FileRename> parallel = new GfsRenameDetector(objService).parallelism(4).detect(changes);
+    assertEquals(sequential.toString(), parallel.toString());
+  }
+
+  private List<FileRename> detect(GfsRenameDetector detector) throws IOException {
+    RevTree newTree = commit().getTree();
+    return detector.detect(DiffUtils.getChanges(oldTree, newTree, repo));
+  }
+
+  private static String lines(String prefix, int count) {
+    StringBuilder ret = new StringBuilder();
+    for(int i = 0; i < count; i++)
+      ret.append(prefix).append(" line ").append(i).append('\n');
+    return ret.toString();
+  }
+
+}
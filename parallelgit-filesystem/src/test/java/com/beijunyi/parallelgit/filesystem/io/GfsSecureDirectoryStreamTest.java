@@ -0,0 +1,125 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.util.Collections;
+import java.util.HashSet;
+
+import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Arrays.asList;
+import static org.eclipse.jgit.lib.Constants.encode;
+import static org.junit.Assert.*;
+
+public class GfsSecureDirectoryStreamTest extends AbstractGitFileSystemTest {
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/dir/file.txt", "some text");
+    writeToCache("/dir/sub/file.txt");
+    writeToCache("/other/file.txt");
+    commitToMaster();
+    initGitFileSystem();
+  }
+
+  @Test
+  public void readFileRelativeToStream_shouldReturnFileContent() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir");
+        SeekableByteChannel channel = ds.newByteChannel(gfs.getPath("file.txt"), Collections.<OpenOption>emptySet())) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      channel.read(buffer);
+      assertArrayEquals(encode("some text"), buffer.array());
+    }
+  }
+
+  @Test
+  public void createFileRelativeToStream_theFileShouldExist() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir");
+        SeekableByteChannel channel = ds.newByteChannel(gfs.getPath("new_file.txt"), new HashSet<>(asList(CREATE_NEW, WRITE)))) {
+      channel.write(ByteBuffer.wrap(someBytes()));
+    }
+    assertTrue(Files.exists(gfs.getPath("/dir/new_file.txt")));
+  }
+
+  @Test
+  public void deleteFileRelativeToStream_theFileShouldNotExist() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir")) {
+      ds.deleteFile(gfs.getPath("file.txt"));
+    }
+    assertFalse(Files.exists(gfs.getPath("/dir/file.txt")));
+  }
+
+  @Test(expected = FileSystemException.class)
+  public void deleteFileWhenPathIsDirectory_shouldThrowFileSystemException() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir")) {
+      ds.deleteFile(gfs.getPath("sub"));
+    }
+  }
+
+  @Test(expected = DirectoryNotEmptyException.class)
+  public void deleteDirectoryWhenDirectoryIsNotEmpty_shouldThrowDirectoryNotEmptyException() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir")) {
+      ds.deleteDirectory(gfs.getPath("sub"));
+    }
+  }
+
+  @Test
+  public void deleteDirectoryAfterDeletingChildren_theDirectoryShouldNotExist() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir");
+        SecureDirectoryStream<Path> sub = ds.newDirectoryStream(gfs.getPath("sub"))) {
+      sub.deleteFile(gfs.getPath("file.txt"));
+      ds.deleteDirectory(gfs.getPath("sub"));
+    }
+    assertFalse(Files.exists(gfs.getPath("/dir/sub")));
+  }
+
+  @Test
+  public void moveFileToAnotherStream_theFileShouldBeMoved() throws IOException {
+    try(SecureDirectoryStream<Path> source = openDirectory("/dir");
+        SecureDirectoryStream<Path> target = openDirectory("/other")) {
+      source.move(gfs.getPath("file.txt"), target, gfs.getPath("moved.txt"));
+    }
+    assertFalse(Files.exists(gfs.getPath("/dir/file.txt")));
+    assertEquals("some text", readAsString(gfs.getPath("/other/moved.txt")));
+  }
+
+  @Test
+  public void getFileAttributeViewRelativeToStream_shouldReturnAttributesOfTheChild() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir")) {
+      BasicFileAttributeView view = ds.getFileAttributeView(gfs.getPath("sub"), BasicFileAttributeView.class);
+      assertNotNull(view);
+      assertTrue(view.readAttributes().isDirectory());
+    }
+  }
+
+  @Test
+  public void resolvePathOutsideOfStream_shouldResolveAgainstTheStreamPath() throws IOException {
+    try(SecureDirectoryStream<Path> ds = openDirectory("/dir")) {
+      BasicFileAttributeView view = ds.getFileAttributeView(gfs.getPath("../other/file.txt"), BasicFileAttributeView.class);
+      assertNotNull(view);
+      assertTrue(view.readAttributes().isRegularFile());
+    }
+  }
+
+  @Test(expected = ClosedDirectoryStreamException.class)
+  public void useStreamAfterClosed_shouldThrowClosedDirectoryStreamException() throws IOException {
+    SecureDirectoryStream<Path> ds = openDirectory("/dir");
+    ds.close();
+    ds.deleteFile(gfs.getPath("file.txt"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private SecureDirectoryStream<Path> openDirectory(String path) throws IOException {
+    DirectoryStream<Path> ds = Files.newDirectoryStream(gfs.getPath(path));
+    assertTrue(ds instanceof SecureDirectoryStream);
+    return (SecureDirectoryStream<Path>) ds;
+  }
+
+}
@@ -0,0 +1,180 @@
+package com.beijunyi.parallelgit.filesystem.io;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+
+import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
+import com.beijunyi.parallelgit.filesystem.Gfs;
+import com.beijunyi.parallelgit.utils.TreeUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static org.junit.Assert.*;
+
+public class GfsWatchServiceTest extends AbstractGitFileSystemTest {
+
+  private WatchService watcher;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("/dir/some_file.txt");
+    writeToCache("/dir/sub/some_file.txt");
+    commitToMaster();
+    initGitFileSystem();
+    watcher = gfs.newWatchService();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    watcher.close();
+  }
+
+  @Test
+  public void createFileInWatchedDirectory_shouldSignalEntryCreateEvent() throws IOException {
+    WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_CREATE);
+    Files.write(gfs.getPath("/dir/new_file.txt"), someBytes());
+    assertSame(key, watcher.poll());
+    WatchEvent<?> event = key.pollEvents().get(0);
+    assertEquals(ENTRY_CREATE, event.kind());
+    assertEquals(gfs.getPath("new_file.txt"), event.context());
+  }
+
+  @Test
+  public void modifyFileInWatchedDirectory_shouldSignalEntryModifyEvent() throws IOException {
+    WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_MODIFY);
+    Files.write(gfs.getPath("/dir/some_file.txt"), someBytes());
+    assertSame(key, watcher.poll());
+    WatchEvent<?> event = key.pollEvents().get(0);
+    assertEquals(ENTRY_MODIFY, event.kind());
+    assertEquals(gfs.getPath("some_file.txt"), event.context());
+  }
+
+  @Test
+  public void deleteFileInWatchedDirectory_shouldSignalEntryDeleteEvent() throws IOException {
+    WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_DELETE);
+    Files.delete(gfs.getPath("/dir/some_file.txt"));
+    assertSame(key, watcher.poll());
+    WatchEvent<?> event = key.pollEvents().get(0);
+    assertEquals(ENTRY_DELETE, event.kind());
+    assertEquals(gfs.getPath("some_file.txt"), event.context());
+  }
+
+  @Test
+  public void whenEventKindIsNotRegistered_watcherShouldNotBeSignalled() throws IOException {
+    gfs.getPath("/dir").register(watcher, ENTRY_DELETE);
+    Files.write(gfs.getPath("/dir/new_file.txt"), someBytes());
+    assertNull(watcher.poll());
+  }
+
+  @Test
+  public void changeFileInSubDirectory_watcherShouldNotBeSignalled() throws IOException {
+    gfs.getPath("/dir").register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    Files.write(gfs.getPath("/dir/sub/some_file.txt"), someBytes());
+    assertNull(watcher.poll());
+  }
+
+  @Test
+  public void repeatedModifications_shouldBeMergedIntoOneEvent() throws IOException {
+    WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_MODIFY);
+    Files.write(gfs.getPath("/dir/some_file.txt"), someBytes());
+    Files.write(gfs.getPath("/dir/some_file.txt"), someBytes());
+    assertSame(key, watcher.poll());
+    List<WatchEvent<?>> events = key.pollEvents();
+    assertEquals(1, events.size());
+    assertEquals(2, events.get(0).count());
+  }
+
+  @Test
+  public void whenKeyIsNotReset_watcherShouldNotBeSignalledAgain() throws IOException {
+    WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_CREATE);
+    Files.write(gfs.getPath("/dir/file1.txt"), someBytes());
+    assertSame(key, watcher.poll());
+    Files.write(gfs.getPath("/dir/file2.txt"), someBytes());
+    assertNull(watcher.poll());
+    assertEquals(2, key.pollEvents().size());
+  }
+
+  @Test
+  public void checkoutWithChangesInWatchedDirectory_shouldSignalBatchedEvents() throws IOException {
+    writeToCache("/dir/file1.txt");
+    writeToCache("/dir/file2.txt");
+    commitToBranch("test_branch");
+    WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_CREATE);
+    Gfs.checkout(gfs).target("test_branch").execute();
+    assertSame(key, watcher.poll());
+    assertNull(watcher.poll());
+    assertEquals(2, key.pollEvents().size());
+  }
+
+  @Test
+  public void replaceParentOfWatchedDirectory_keyShouldFollowTheNewDirectory() throws IOException {
+    writeToCache("/dir/sub/new_file.txt");
+    RevCommit commit = commitToBranch("test_branch");
+    ObjectId dirTree = TreeUtils.getObjectId("/dir", commit.getTree(), repo);
+    WatchKey key = gfs.getPath("/dir/sub").register(watcher, ENTRY_CREATE);
+    RootNode root = gfs.getFileStore().getRoot();
+    root.addChild("dir", DirectoryNode.fromTree(dirTree, root), true);
+    assertTrue(key.isValid());
+    assertSame(key, watcher.poll());
+    WatchEvent<?> event = key.pollEvents().get(0);
+    assertEquals(gfs.getPath("new_file.txt"), event.context());
+    assertTrue(key.reset());
+    Files.write(gfs.getPath("/dir/sub/another_file.txt"), someBytes());
+    assertSame(key, watcher.poll());
+  }
+
+  @Test
+  public void replaceParentOfCancelledWatchDirectory_newDirectoryShouldNotBeLoaded() throws IOException {
+    writeToCache("/dir/sub/new_file.txt");
+    RevCommit commit = commitToBranch("test_branch");
+    ObjectId dirTree = TreeUtils.getObjectId("/dir", commit.getTree(), repo);
+    gfs.getPath("/dir/sub").register(watcher, ENTRY_CREATE).cancel();
+    RootNode root = gfs.getFileStore().getRoot();
+    DirectoryNode replacement = DirectoryNode.fromTree(dirTree, root);
+    root.addChild("dir", replacement, true);
+    assertFalse(replacement.isInitialized());
+  }
+
+  @Test
+  public void deleteParentOfWatchedDirectory_keyShouldBeInvalid() throws IOException {
+    WatchKey key = gfs.getPath("/dir/sub").register(watcher, ENTRY_DELETE);
+    gfs.getFileStore().getRoot().removeChild("dir");
+    assertFalse(key.isValid());
+  }
+
+  @Test
+  public void deleteWatchedDirectory_keyShouldBeInvalid() throws IOException {
+    WatchKey key = gfs.getPath("/dir/sub").register(watcher, ENTRY_DELETE);
+    Files.delete(gfs.getPath("/dir/sub/some_file.txt"));
+    Files.delete(gfs.getPath("/dir/sub"));
+    assertFalse(key.isValid());
+    assertFalse(key.reset());
+  }
+
+  @Test
+  public void cancelKey_watcherShouldNotBeSignalled() throws IOException {
+    WatchKey key = gfs.getPath("/dir").register(watcher, ENTRY_CREATE);
+    key.cancel();
+    Files.write(gfs.getPath("/dir/new_file.txt"), someBytes());
+    assertFalse(key.isValid());
+    assertNull(watcher.poll());
+  }
+
+  @Test(expected = NotDirectoryException.class)
+  public void registerFile_shouldThrowNotDirectoryException() throws IOException {
+    gfs.getPath("/dir/some_file.txt").register(watcher, ENTRY_CREATE);
+  }
+
+  @Test(expected = ClosedWatchServiceException.class)
+  public void takeAfterWatcherIsClosed_shouldThrowClosedWatchServiceException() throws IOException, InterruptedException {
+    watcher.close();
+    watcher.take();
+  }
+
+}
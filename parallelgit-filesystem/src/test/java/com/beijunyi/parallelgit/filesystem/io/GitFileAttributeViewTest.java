@@ -7,6 +7,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.filesystem.AbstractGitFileSystemTest;
+import com.beijunyi.parallelgit.filesystem.Gfs;
 import com.beijunyi.parallelgit.filesystem.exceptions.IncompatibleFileModeException;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.FileMode;
@@ -15,6 +16,7 @@ import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Test;
 
 import static com.beijunyi.parallelgit.filesystem.io.GfsFileAttributeView.*;
+import static com.beijunyi.parallelgit.utils.CacheUtils.addFile;
 import static com.beijunyi.parallelgit.utils.TreeUtils.getObjectId;
 import static org.eclipse.jgit.lib.FileMode.*;
 import static org.eclipse.jgit.lib.ObjectId.zeroId;
@@ -143,6 +145,34 @@ public class GitFileAttributeViewTest extends AbstractGitFileSystemTest {
     assertFalse(isModified("/dir"));
   }
 
+  @Test
+  public void whenFileIsModifiedAfterTheDirectoryIsQueried_isModifiedAttributeOfTheDirectoryShouldBeTrue() throws IOException {
+    initGitFileSystem("/dir/sub/some_file.txt");
+    assertFalse(isModified("/dir"));
+    Files.write(gfs.getPath("/dir/sub/some_file.txt"), someBytes());
+    assertTrue(isModified("/dir"));
+  }
+
+  @Test
+  public void whenFileIsRestoredAfterTheDirectoryIsQueried_isModifiedAttributeOfTheDirectoryShouldBeFalse() throws IOException {
+    byte[] data = someBytes();
+    writeToCache("/dir/some_file.txt", data);
+    initGitFileSystem();
+    Files.write(gfs.getPath("/dir/some_file.txt"), someBytes());
+    assertTrue(isModified("/dir"));
+    Files.write(gfs.getPath("/dir/some_file.txt"), data);
+    assertFalse(isModified("/dir"));
+  }
+
+  @Test
+  public void whenChangesAreCommittedAfterTheFileIsQueried_isModifiedAttributeShouldBeFalse() throws IOException {
+    initGitFileSystem("/some_file.txt");
+    Files.write(gfs.getPath("/some_file.txt"), someBytes());
+    assertTrue(isModified("/some_file.txt"));
+    Gfs.commit(gfs).execute();
+    assertFalse(isModified("/some_file.txt"));
+  }
+
   @Test
   public void whenFileIsNotModified_getObjectIdShouldReturnItsOriginalBlobId() throws IOException {
     writeToCache("/some_file.txt", someBytes());
@@ -205,6 +235,58 @@ public class GitFileAttributeViewTest extends AbstractGitFileSystemTest {
     assertEquals(EXECUTABLE_FILE, fileMode("/some_file.txt"));
   }
 
+  @Test
+  public void getTotalSizeOfDirectory_shouldReturnTheSumOfAllFileSizes() throws IOException {
+    initRepository();
+    writeToCache("/dir/some_file.txt", new byte[3]);
+    writeToCache("/dir/sub/some_file.txt", new byte[5]);
+    commitToMaster();
+    initGitFileSystem();
+    assertEquals(8L, readAttribute("/dir", TOTAL_SIZE));
+  }
+
+  @Test
+  public void getFileCountOfDirectory_shouldReturnTheNumberOfAllFiles() throws IOException {
+    initGitFileSystem("/dir/some_file.txt", "/dir/sub/some_file.txt", "/other_file.txt");
+    assertEquals(2L, readAttribute("/dir", FILE_COUNT));
+  }
+
+  @Test
+  public void getTotalSizeOfDirectoryAfterChildIsModified_shouldReturnTheNewSum() throws IOException {
+    initRepository();
+    writeToCache("/dir/some_file.txt", new byte[3]);
+    writeToCache("/dir/sub/some_file.txt", new byte[5]);
+    commitToMaster();
+    initGitFileSystem();
+    assertEquals(8L, readAttribute("/dir", TOTAL_SIZE));
+    Files.write(gfs.getPath("/dir/sub/some_file.txt"), new byte[10]);
+    Files.write(gfs.getPath("/dir/sub/some_other_file.txt"), new byte[1]);
+    assertEquals(14L, readAttribute("/dir", TOTAL_SIZE));
+    assertEquals(3L, readAttribute("/dir", FILE_COUNT));
+  }
+
+  @Test
+  public void getTotalSizeOfModifiedDirectoryWithGitLink_theGitLinkShouldNotBeCounted() throws IOException {
+    initRepository();
+    writeToCache("/dir/some_file.txt", new byte[3]);
+    RevCommit submodule = commitToMaster();
+    addFile("/dir/submodule", GITLINK, submodule, cache);
+    commitToMaster();
+    initGitFileSystem();
+    Files.write(gfs.getPath("/dir/some_other_file.txt"), new byte[2]);
+    assertEquals(5L, readAttribute("/dir", TOTAL_SIZE));
+    assertEquals(2L, readAttribute("/dir", FILE_COUNT));
+  }
+
+  @Test
+  public void getTotalSizeOfFile_shouldReturnTheFileSize() throws IOException {
+    initRepository();
+    writeToCache("/some_file.txt", new byte[7]);
+    commitToMaster();
+    initGitFileSystem();
+    assertEquals(7L, readAttribute("/some_file.txt", TOTAL_SIZE));
+  }
+
   @Test(expected = IncompatibleFileModeException.class)
   public void setTheModeOfDirectoryToFile_shouldThrowIncompatibleFileModeException() throws IOException {
     initGitFileSystem("/dir/some_file.txt");
@@ -1,6 +1,7 @@
 package com.beijunyi.parallelgit.utils;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -8,12 +9,15 @@ import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.utils.exceptions.BranchAlreadyExistsException;
 import com.beijunyi.parallelgit.utils.exceptions.NoSuchBranchException;
+import com.beijunyi.parallelgit.utils.exceptions.RefUpdateRejectedException;
 import com.beijunyi.parallelgit.utils.exceptions.RefUpdateValidator;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.*;
+import org.eclipse.jgit.transport.ReceiveCommand;
 
 import static com.beijunyi.parallelgit.utils.CommitUtils.getCommit;
 import static com.beijunyi.parallelgit.utils.RefUtils.fullBranchName;
+import static java.util.Collections.unmodifiableMap;
 import static org.eclipse.jgit.lib.Constants.*;
 import static org.eclipse.jgit.lib.ObjectId.zeroId;
 
@@ -111,10 +115,53 @@ public final class BranchUtils {
     setBranchHead(name, commitId, repo, makeRefLogMessage("cherry-pick", commitId, repo), false);
   }
 
+  public static void rebase(String name, AnyObjectId commitId, AnyObjectId expectedOldId, Repository repo) throws IOException {
+    setBranchHead(name, commitId, expectedOldId, repo, makeRefLogMessage("rebase", commitId, repo), true);
+  }
+
   public static void merge(String name, AnyObjectId commitId, Ref sourceRef, String details, Repository repo) throws IOException {
     setBranchHead(name, commitId, repo, makeRefLogMessage("merge " + sourceRef.getName(), details), false);
   }
 
+  public static void newCommits(Map<String, ? extends AnyObjectId> commits, Repository repo) throws IOException {
+    StringBuilder failures = new StringBuilder();
+    for(Map.Entry<String, ReceiveCommand.Result> result : tryNewCommits(commits, repo).entrySet()) {
+      if(result.getValue() != ReceiveCommand.Result.OK) {
+        if(failures.length() > 0)
+          failures.append(", ");
+        failures.append(fullBranchName(result.getKey())).append(": ").append(result.getValue().name());
+      }
+    }
+    if(failures.length() > 0)
+      throw new RefUpdateRejectedException(failures.toString());
+  }
+
+  @Nonnull
+  public static Map<String, ReceiveCommand.Result> tryNewCommits(Map<String, ? extends AnyObjectId> commits, Repository repo) throws IOException {
+    Map<String, ReceiveCommand> commands = new LinkedHashMap<>();
+    BatchRefUpdate batch = repo.getRefDatabase().newBatchUpdate();
+    batch.setRefLogMessage("commit (batch)", false);
+    try(RevWalk rw = new RevWalk(repo)) {
+      for(Map.Entry<String, ? extends AnyObjectId> commit : commits.entrySet()) {
+        String refName = fullBranchName(commit.getKey());
+        ObjectId currentHead = repo.resolve(refName);
+        ReceiveCommand command = new ReceiveCommand(currentHead != null ? currentHead : zeroId(), commit.getValue().copy(), refName);
+        command.updateType(rw);
+        if(command.getType() == ReceiveCommand.Type.UPDATE_NONFASTFORWARD)
+          command.setResult(ReceiveCommand.Result.REJECTED_NONFASTFORWARD);
+        else
+          batch.addCommand(command);
+        commands.put(commit.getKey(), command);
+      }
+      if(!batch.getCommands().isEmpty())
+        batch.execute(rw, NullProgressMonitor.INSTANCE);
+    }
+    Map<String, ReceiveCommand.Result> ret = new LinkedHashMap<>();
+    for(Map.Entry<String, ReceiveCommand> command : commands.entrySet())
+      ret.put(command.getKey(), command.getValue().getResult());
+    return unmodifiableMap(ret);
+  }
+
   public static void deleteBranch(String name, Repository repo) throws IOException {
     String refName = fullBranchName(name);
     if(prepareDeleteBranch(refName, repo)) {
@@ -148,12 +195,15 @@ public final class BranchUtils {
     AnyObjectId currentHead = repo.resolve(refName);
     if(currentHead == null)
       currentHead = zeroId();
+    setBranchHead(name, commitId, currentHead, repo, refLogMessage, forceUpdate);
+  }
 
-    RefUpdate update = repo.updateRef(refName);
+  private static void setBranchHead(String name, AnyObjectId commitId, AnyObjectId expectedOldId, Repository repo, @Nullable String refLogMessage, boolean forceUpdate) throws IOException {
+    RefUpdate update = repo.updateRef(fullBranchName(name));
     update.setRefLogMessage(refLogMessage, false);
     update.setForceUpdate(forceUpdate);
     update.setNewObjectId(commitId);
-    update.setExpectedOldObjectId(currentHead);
+    update.setExpectedOldObjectId(expectedOldId);
     RefUpdateValidator.validate(update.update());
   }
 
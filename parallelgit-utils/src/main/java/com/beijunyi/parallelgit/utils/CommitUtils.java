@@ -8,6 +8,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.beijunyi.parallelgit.utils.exceptions.NoSuchCommitException;
+import com.beijunyi.parallelgit.utils.io.CommitGraph;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -141,7 +142,7 @@ public final class CommitUtils {
 
   public static boolean isMergedInto(AnyObjectId sourceHead, AnyObjectId masterHead, Repository repo) throws IOException {
     try(ObjectReader reader = repo.newObjectReader()) {
-      return isMergedInto(sourceHead, masterHead, reader);
+      return CommitGraph.forRepository(repo).isMergedInto(sourceHead, masterHead, reader);
     }
   }
 
@@ -149,6 +150,18 @@ public final class CommitUtils {
     return isMergedInto(repo.resolve(source), repo.resolve(master), repo);
   }
 
+  @Nonnull
+  public static List<ObjectId> getMergeBases(AnyObjectId ours, AnyObjectId theirs, Repository repo) throws IOException {
+    try(ObjectReader reader = repo.newObjectReader()) {
+      return CommitGraph.forRepository(repo).getMergeBases(ours, theirs, reader);
+    }
+  }
+
+  @Nonnull
+  public static List<ObjectId> getMergeBases(String ours, String theirs, Repository repo) throws IOException {
+    return getMergeBases(repo.resolve(ours), repo.resolve(theirs), repo);
+  }
+
   @Nonnull
   public static List<RevCommit> listUnmergedCommits(AnyObjectId sourceHead, AnyObjectId masterHead, ObjectReader reader) throws IOException {
     try(RevWalk rw = new RevWalk(reader)) {
@@ -207,7 +220,7 @@ public final class CommitUtils {
   }
 
   @Nonnull
-  private static ObjectId insertCommit(String message, AnyObjectId treeId, PersonIdent author, PersonIdent committer, List<? extends AnyObjectId> parents, ObjectInserter inserter) throws IOException {
+  public static ObjectId insertCommit(String message, AnyObjectId treeId, PersonIdent author, PersonIdent committer, List<? extends AnyObjectId> parents, ObjectInserter inserter) throws IOException {
     CommitBuilder builder = new CommitBuilder();
     builder.setCommitter(committer);
     builder.setAuthor(author);
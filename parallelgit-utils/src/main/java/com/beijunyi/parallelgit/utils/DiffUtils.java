@@ -0,0 +1,193 @@
+package com.beijunyi.parallelgit.utils;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.beijunyi.parallelgit.utils.io.GitFileEntry;
+import com.beijunyi.parallelgit.utils.io.ParallelTasks;
+import com.beijunyi.parallelgit.utils.io.TreeChange;
+import com.beijunyi.parallelgit.utils.io.TreeDiffVisitor;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+import static com.beijunyi.parallelgit.utils.io.GitFileEntry.*;
+
+public final class DiffUtils {
+
+  public static void diffTrees(@Nullable AnyObjectId oldTree, @Nullable AnyObjectId newTree, TreeDiffVisitor visitor, ObjectReader reader) throws IOException {
+    compareEntries("", treeEntry(oldTree), treeEntry(newTree), visitor, reader);
+  }
+
+  public static void diffTrees(@Nullable AnyObjectId oldTree, @Nullable AnyObjectId newTree, TreeDiffVisitor visitor, Repository repo) throws IOException {
+    try(ObjectReader reader = repo.newObjectReader()) {
+      diffTrees(oldTree, newTree, visitor, reader);
+    }
+  }
+
+  public static void diffTrees(@Nullable AnyObjectId oldTree, @Nullable AnyObjectId newTree, TreeDiffVisitor visitor, int parallelism, Repository repo) throws IOException {
+    if(parallelism < 1)
+      throw new IllegalArgumentException("parallelism: " + parallelism);
+    visitor = new SynchronizedVisitor(visitor);
+    Queue<String> subtrees = new ConcurrentLinkedQueue<>();
+    Map<String, GitFileEntry> oldEntries;
+    Map<String, GitFileEntry> newEntries;
+    try(ObjectReader reader = repo.newObjectReader()) {
+      oldEntries = readTree(treeEntry(oldTree), reader);
+      newEntries = readTree(treeEntry(newTree), reader);
+      for(String name : mergeNames(oldEntries, newEntries)) {
+        GitFileEntry oldEntry = getEntry(name, oldEntries);
+        GitFileEntry newEntry = getEntry(name, newEntries);
+        if(oldEntry.equals(newEntry))
+          continue;
+        if(oldEntry.isSubtree() || newEntry.isSubtree())
+          subtrees.add(name);
+        else
+          visitor.visit(new TreeChange(childPath("", name), oldEntry, newEntry));
+      }
+    }
+    int workers = Math.max(1, Math.min(parallelism, subtrees.size()));
+    List<DiffWorker> tasks = new ArrayList<>(workers);
+    for(int i = 0; i < workers; i++)
+      tasks.add(new DiffWorker(subtrees, oldEntries, newEntries, visitor, repo));
+    ParallelTasks.runAll(tasks);
+  }
+
+  @Nonnull
+  public static List<TreeChange> getChanges(@Nullable AnyObjectId oldTree, @Nullable AnyObjectId newTree, ObjectReader reader) throws IOException {
+    final List<TreeChange> ret = new ArrayList<>();
+    diffTrees(oldTree, newTree, new TreeDiffVisitor() {
+      @Override
+      public void visit(TreeChange change) {
+        ret.add(change);
+      }
+    }, reader);
+    return ret;
+  }
+
+  @Nonnull
+  public static List<TreeChange> getChanges(@Nullable AnyObjectId oldTree, @Nullable AnyObjectId newTree, Repository repo) throws IOException {
+    try(ObjectReader reader = repo.newObjectReader()) {
+      return getChanges(oldTree, newTree, reader);
+    }
+  }
+
+  @Nonnull
+  public static List<TreeChange> getChanges(@Nullable AnyObjectId oldTree, @Nullable AnyObjectId newTree, int parallelism, Repository repo) throws IOException {
+    final List<TreeChange> ret = new ArrayList<>();
+    diffTrees(oldTree, newTree, new TreeDiffVisitor() {
+      @Override
+      public void visit(TreeChange change) {
+        ret.add(change);
+      }
+    }, parallelism, repo);
+    return ret;
+  }
+
+  private static void compareEntries(String path, GitFileEntry oldEntry, GitFileEntry newEntry, TreeDiffVisitor visitor, ObjectReader reader) throws IOException {
+    if(oldEntry.equals(newEntry))
+      return;
+    if(oldEntry.isSubtree() || newEntry.isSubtree()) {
+      compareTrees(path, oldEntry, newEntry, visitor, reader);
+      if(oldEntry.isSubtree())
+        oldEntry = missingEntry();
+      if(newEntry.isSubtree())
+        newEntry = missingEntry();
+      if(oldEntry.equals(newEntry))
+        return;
+    }
+    visitor.visit(new TreeChange(path, oldEntry, newEntry));
+  }
+
+  private static void compareTrees(String path, GitFileEntry oldTree, GitFileEntry newTree, TreeDiffVisitor visitor, ObjectReader reader) throws IOException {
+    Map<String, GitFileEntry> oldEntries = readTree(oldTree, reader);
+    Map<String, GitFileEntry> newEntries = readTree(newTree, reader);
+    for(String name : mergeNames(oldEntries, newEntries))
+      compareEntries(childPath(path, name), getEntry(name, oldEntries), getEntry(name, newEntries), visitor, reader);
+  }
+
+  @Nonnull
+  private static Map<String, GitFileEntry> readTree(GitFileEntry entry, ObjectReader reader) throws IOException {
+    if(!entry.isSubtree() || entry.isVirtualSubtree())
+      return Collections.emptyMap();
+    Map<String, GitFileEntry> ret = new HashMap<>();
+    CanonicalTreeParser parser = new CanonicalTreeParser(null, reader, entry.getId());
+    while(!parser.eof()) {
+      ret.put(parser.getEntryPathString(), newEntry(parser.getEntryObjectId(), parser.getEntryFileMode()));
+      parser.next(1);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private static SortedSet<String> mergeNames(Map<String, GitFileEntry> oldEntries, Map<String, GitFileEntry> newEntries) {
+    SortedSet<String> ret = new TreeSet<>(oldEntries.keySet());
+    ret.addAll(newEntries.keySet());
+    return ret;
+  }
+
+  @Nonnull
+  private static GitFileEntry getEntry(String name, Map<String, GitFileEntry> entries) {
+    GitFileEntry ret = entries.get(name);
+    return ret != null ? ret : missingEntry();
+  }
+
+  @Nonnull
+  private static GitFileEntry treeEntry(@Nullable AnyObjectId tree) {
+    return tree != null ? newTreeEntry(tree.copy()) : missingEntry();
+  }
+
+  @Nonnull
+  private static String childPath(String parent, String name) {
+    return parent + "/" + name;
+  }
+
+  private static class SynchronizedVisitor implements TreeDiffVisitor {
+
+    private final TreeDiffVisitor visitor;
+
+    private SynchronizedVisitor(TreeDiffVisitor visitor) {
+      this.visitor = visitor;
+    }
+
+    @Override
+    public synchronized void visit(TreeChange change) throws IOException {
+      visitor.visit(change);
+    }
+
+  }
+
+  private static class DiffWorker implements Callable<Void> {
+
+    private final Queue<String> subtrees;
+    private final Map<String, GitFileEntry> oldEntries;
+    private final Map<String, GitFileEntry> newEntries;
+    private final TreeDiffVisitor visitor;
+    private final Repository repo;
+
+    private DiffWorker(Queue<String> subtrees, Map<String, GitFileEntry> oldEntries, Map<String, GitFileEntry> newEntries, TreeDiffVisitor visitor, Repository repo) {
+      this.subtrees = subtrees;
+      this.oldEntries = oldEntries;
+      this.newEntries = newEntries;
+      this.visitor = visitor;
+      this.repo = repo;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      try(ObjectReader reader = repo.newObjectReader()) {
+        String name;
+        while((name = subtrees.poll()) != null)
+          compareEntries(childPath("", name), getEntry(name, oldEntries), getEntry(name, newEntries), visitor, reader);
+      }
+      return null;
+    }
+
+  }
+
+}
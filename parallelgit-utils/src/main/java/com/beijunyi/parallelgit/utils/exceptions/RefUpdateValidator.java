@@ -1,6 +1,7 @@
 package com.beijunyi.parallelgit.utils.exceptions;
 
 import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.transport.ReceiveCommand;
 
 public final class RefUpdateValidator {
 
@@ -17,4 +18,17 @@ public final class RefUpdateValidator {
     }
   }
 
+  public static void validate(ReceiveCommand.Result result) {
+    switch(result) {
+      case OK:
+        return;
+      case REJECTED_CURRENT_BRANCH:
+        throw new RefUpdateRejectedCurrentBranchException(result.name());
+      case LOCK_FAILURE:
+        throw new RefUpdateLockFailureException(result.name());
+      default:
+        throw new RefUpdateRejectedException(result.name());
+    }
+  }
+
 }
@@ -0,0 +1,317 @@
+package com.beijunyi.parallelgit.utils.io;
+
+import java.io.IOException;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import static java.util.Collections.unmodifiableList;
+
+public class CommitGraph {
+
+  private static final int MAX_NODES = 65536;
+  private static final int MAX_MERGE_BASES = 4096;
+
+  private static final int OURS = 1;
+  private static final int THEIRS = 2;
+  private static final int STALE = 4;
+
+  private static final Map<Repository, CommitGraph> GRAPHS = new WeakHashMap<>();
+
+  // generations outlive evicted nodes so a reload stops at the first known ancestor
+  private final ObjectIdOwnerMap<EvictedCommit> evicted = new ObjectIdOwnerMap<>();
+  private final Map<ObjectId, CommitNode> nodes = new LinkedHashMap<ObjectId, CommitNode>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ObjectId, CommitNode> eldest) {
+      if(size() <= MAX_NODES)
+        return false;
+      evicted.addIfAbsent(new EvictedCommit(eldest.getKey(), eldest.getValue().generation));
+      return true;
+    }
+  };
+  private final Map<CommitPair, List<ObjectId>> mergeBases = new LinkedHashMap<CommitPair, List<ObjectId>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<CommitPair, List<ObjectId>> eldest) {
+      return size() > MAX_MERGE_BASES;
+    }
+  };
+
+  @Nonnull
+  public static CommitGraph forRepository(Repository repo) {
+    synchronized(GRAPHS) {
+      CommitGraph ret = GRAPHS.get(repo);
+      if(ret == null) {
+        ret = new CommitGraph();
+        GRAPHS.put(repo, ret);
+      }
+      return ret;
+    }
+  }
+
+  public int getGeneration(AnyObjectId commit, ObjectReader reader) throws IOException {
+    return load(commit, reader).generation;
+  }
+
+  public boolean isMergedInto(AnyObjectId base, AnyObjectId tip, ObjectReader reader) throws IOException {
+    return isMergedInto(peel(base, reader), peel(tip, reader), reader);
+  }
+
+  private boolean isMergedInto(ObjectId base, ObjectId tip, ObjectReader reader) throws IOException {
+    if(base.equals(tip))
+      return true;
+    int baseGeneration = getGeneration(base, reader);
+    if(baseGeneration >= getGeneration(tip, reader))
+      return false;
+    Deque<ObjectId> queue = new ArrayDeque<>();
+    Set<ObjectId> visited = new HashSet<>();
+    queue.add(tip);
+    while(!queue.isEmpty()) {
+      for(ObjectId parent : load(queue.poll(), reader).parents) {
+        if(parent.equals(base))
+          return true;
+        if(load(parent, reader).generation > baseGeneration && visited.add(parent))
+          queue.add(parent);
+      }
+    }
+    return false;
+  }
+
+  @Nonnull
+  public List<ObjectId> getMergeBases(AnyObjectId ours, AnyObjectId theirs, ObjectReader reader) throws IOException {
+    CommitPair key = new CommitPair(peel(ours, reader), peel(theirs, reader));
+    synchronized(mergeBases) {
+      List<ObjectId> ret = mergeBases.get(key);
+      if(ret != null)
+        return ret;
+    }
+    List<ObjectId> ret = unmodifiableList(findMergeBases(key.first, key.second, reader));
+    synchronized(mergeBases) {
+      mergeBases.put(key, ret);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private List<ObjectId> findMergeBases(ObjectId ours, ObjectId theirs, ObjectReader reader) throws IOException {
+    if(isMergedInto(ours, theirs, reader))
+      return Collections.singletonList(ours);
+    if(isMergedInto(theirs, ours, reader))
+      return Collections.singletonList(theirs);
+    List<ObjectId> candidates = paintDownToCommon(ours, theirs, reader);
+    List<ObjectId> ret = new ArrayList<>();
+    for(ObjectId candidate : candidates) {
+      boolean redundant = false;
+      for(ObjectId other : candidates) {
+        if(candidate != other && isMergedInto(candidate, other, reader)) {
+          redundant = true;
+          break;
+        }
+      }
+      if(!redundant)
+        ret.add(candidate);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private List<ObjectId> paintDownToCommon(ObjectId ours, ObjectId theirs, ObjectReader reader) throws IOException {
+    Map<ObjectId, PaintedCommit> painted = new HashMap<>();
+    PriorityQueue<PaintedCommit> queue = new PriorityQueue<>(16, new Comparator<PaintedCommit>() {
+      @Override
+      public int compare(PaintedCommit left, PaintedCommit right) {
+        return Integer.compare(right.node.generation, left.node.generation);
+      }
+    });
+    int nonStale = 0;
+    nonStale += paint(ours, OURS, painted, queue, reader);
+    nonStale += paint(theirs, THEIRS, painted, queue, reader);
+    Set<ObjectId> ret = new LinkedHashSet<>();
+    while(nonStale > 0) {
+      PaintedCommit commit = queue.poll();
+      commit.queued = false;
+      int flag = commit.flags;
+      if((flag & STALE) == 0)
+        nonStale--;
+      if(flag == (OURS | THEIRS)) {
+        ret.add(commit.id);
+        flag |= STALE;
+        commit.flags = flag;
+      }
+      for(ObjectId parent : commit.node.parents)
+        nonStale += paint(parent, flag, painted, queue, reader);
+    }
+    return new ArrayList<>(ret);
+  }
+
+  private int paint(ObjectId id, int flag, Map<ObjectId, PaintedCommit> painted, Queue<PaintedCommit> queue, ObjectReader reader) throws IOException {
+    PaintedCommit commit = painted.get(id);
+    if(commit == null) {
+      commit = new PaintedCommit(id, load(id, reader));
+      painted.put(id, commit);
+    }
+    int current = commit.flags;
+    if((current & flag) == flag)
+      return 0;
+    commit.flags = current | flag;
+    if(!commit.queued) {
+      commit.queued = true;
+      queue.add(commit);
+      return (commit.flags & STALE) == 0 ? 1 : 0;
+    }
+    return (current & STALE) == 0 && (commit.flags & STALE) != 0 ? -1 : 0;
+  }
+
+  @Nonnull
+  private ObjectId peel(AnyObjectId id, ObjectReader reader) throws IOException {
+    if(getNode(id) != null)
+      return id.copy();
+    try(RevWalk rw = new RevWalk(reader)) {
+      return rw.parseCommit(id).copy();
+    }
+  }
+
+  @Nonnull
+  private CommitNode load(AnyObjectId id, ObjectReader reader) throws IOException {
+    CommitNode ret = getNode(id);
+    if(ret != null)
+      return ret;
+    Map<ObjectId, CommitNode> loaded = new LinkedHashMap<>();
+    RevCommit root;
+    try(RevWalk rw = new RevWalk(reader)) {
+      root = rw.parseCommit(id);
+      Deque<RevCommit> stack = new ArrayDeque<>();
+      stack.push(root);
+      while(!stack.isEmpty()) {
+        RevCommit commit = stack.peek();
+        if(findNode(commit, loaded) != null) {
+          stack.pop();
+          continue;
+        }
+        int known = getEvictedGeneration(commit);
+        if(known > 0) {
+          stack.pop();
+          loaded.put(commit.copy(), new CommitNode(commit.getParents(), known));
+          continue;
+        }
+        boolean ready = true;
+        int generation = 0;
+        for(RevCommit parent : commit.getParents()) {
+          CommitNode parentNode = findNode(parent, loaded);
+          int parentGeneration = parentNode != null ? parentNode.generation : getEvictedGeneration(parent);
+          if(parentGeneration == 0) {
+            ready = false;
+            rw.parseHeaders(parent);
+            stack.push(parent);
+          } else {
+            generation = Math.max(generation, parentGeneration);
+          }
+        }
+        if(ready) {
+          stack.pop();
+          loaded.put(commit.copy(), new CommitNode(commit.getParents(), generation + 1));
+        }
+      }
+    }
+    ret = findNode(root, loaded);
+    synchronized(nodes) {
+      nodes.putAll(loaded);
+    }
+    return ret;
+  }
+
+  @Nullable
+  private CommitNode findNode(AnyObjectId id, Map<ObjectId, CommitNode> loaded) {
+    CommitNode ret = loaded.get(id);
+    return ret != null ? ret : getNode(id);
+  }
+
+  @Nullable
+  private CommitNode getNode(AnyObjectId id) {
+    synchronized(nodes) {
+      return nodes.get(id);
+    }
+  }
+
+  private int getEvictedGeneration(AnyObjectId id) {
+    synchronized(nodes) {
+      EvictedCommit ret = evicted.get(id);
+      return ret != null ? ret.generation : 0;
+    }
+  }
+
+  private static class EvictedCommit extends ObjectIdOwnerMap.Entry {
+
+    private final int generation;
+
+    private EvictedCommit(AnyObjectId id, int generation) {
+      super(id);
+      this.generation = generation;
+    }
+
+  }
+
+  private static class CommitNode {
+
+    private final ObjectId[] parents;
+    private final int generation;
+
+    private CommitNode(RevCommit[] parents, int generation) {
+      this.parents = new ObjectId[parents.length];
+      for(int i = 0; i < parents.length; i++)
+        this.parents[i] = parents[i].copy();
+      this.generation = generation;
+    }
+
+  }
+
+  private static class PaintedCommit {
+
+    private final ObjectId id;
+    private final CommitNode node;
+    private int flags;
+    private boolean queued;
+
+    private PaintedCommit(ObjectId id, CommitNode node) {
+      this.id = id;
+      this.node = node;
+    }
+
+  }
+
+  private static class CommitPair {
+
+    private final ObjectId first;
+    private final ObjectId second;
+
+    private CommitPair(ObjectId left, ObjectId right) {
+      boolean ordered = left.compareTo(right) <= 0;
+      this.first = ordered ? left : right;
+      this.second = ordered ? right : left;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if(this == obj)
+        return true;
+      if(obj == null || getClass() != obj.getClass())
+        return false;
+      CommitPair that = (CommitPair) obj;
+      return first.equals(that.first) && second.equals(that.second);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * first.hashCode() + second.hashCode();
+    }
+
+  }
+
+}
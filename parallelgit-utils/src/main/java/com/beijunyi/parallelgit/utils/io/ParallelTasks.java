@@ -0,0 +1,87 @@
+package com.beijunyi.parallelgit.utils.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+
+public final class ParallelTasks {
+
+  private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+  private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(PARALLELISM, new DaemonThreadFactory());
+
+  private ParallelTasks() {
+  }
+
+  public static void runAll(List<? extends Callable<Void>> tasks) throws IOException {
+    // tasks started from a pool thread run inline, so nested calls cannot starve the pool
+    if(tasks.size() < 2 || PARALLELISM < 2 || Thread.currentThread() instanceof Worker) {
+      for(Callable<Void> task : tasks)
+        call(task);
+      return;
+    }
+    List<Future<Void>> futures = new ArrayList<>(tasks.size());
+    for(Callable<Void> task : tasks)
+      futures.add(EXECUTOR.submit(task));
+    Throwable failure = null;
+    for(Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch(ExecutionException e) {
+        if(failure == null)
+          failure = e.getCause();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if(failure == null)
+          failure = new InterruptedIOException();
+      }
+    }
+    if(failure != null)
+      rethrow(failure);
+  }
+
+  private static void call(Callable<Void> task) throws IOException {
+    try {
+      task.call();
+    } catch(IOException | RuntimeException e) {
+      throw e;
+    } catch(Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void rethrow(Throwable failure) throws IOException {
+    if(failure instanceof IOException)
+      throw (IOException) failure;
+    if(failure instanceof RuntimeException)
+      throw (RuntimeException) failure;
+    if(failure instanceof Error)
+      throw (Error) failure;
+    throw new IllegalStateException(failure);
+  }
+
+  private static class Worker extends Thread {
+
+    private Worker(Runnable runnable, String name) {
+      super(runnable, name);
+      setDaemon(true);
+    }
+
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Nonnull
+    @Override
+    public Thread newThread(Runnable runnable) {
+      return new Worker(runnable, "gfs-worker-" + count.incrementAndGet());
+    }
+
+  }
+
+}
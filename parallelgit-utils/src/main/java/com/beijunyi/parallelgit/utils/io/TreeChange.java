@@ -0,0 +1,49 @@
+package com.beijunyi.parallelgit.utils.io;
+
+import javax.annotation.Nonnull;
+
+public class TreeChange {
+
+  private final String path;
+  private final GitFileEntry oldEntry;
+  private final GitFileEntry newEntry;
+
+  public TreeChange(String path, GitFileEntry oldEntry, GitFileEntry newEntry) {
+    this.path = path;
+    this.oldEntry = oldEntry;
+    this.newEntry = newEntry;
+  }
+
+  @Nonnull
+  public String getPath() {
+    return path;
+  }
+
+  @Nonnull
+  public GitFileEntry getOldEntry() {
+    return oldEntry;
+  }
+
+  @Nonnull
+  public GitFileEntry getNewEntry() {
+    return newEntry;
+  }
+
+  public boolean isAdded() {
+    return oldEntry.isMissing();
+  }
+
+  public boolean isDeleted() {
+    return newEntry.isMissing();
+  }
+
+  public boolean isModified() {
+    return !isAdded() && !isDeleted();
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+}
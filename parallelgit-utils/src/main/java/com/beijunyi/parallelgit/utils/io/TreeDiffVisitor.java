@@ -0,0 +1,9 @@
+package com.beijunyi.parallelgit.utils.io;
+
+import java.io.IOException;
+
+public interface TreeDiffVisitor {
+
+  void visit(TreeChange change) throws IOException;
+
+}
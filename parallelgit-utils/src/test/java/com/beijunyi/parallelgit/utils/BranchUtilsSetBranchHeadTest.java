@@ -1,11 +1,17 @@
 package com.beijunyi.parallelgit.utils;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.utils.exceptions.RefUpdateLockFailureException;
 import com.beijunyi.parallelgit.utils.exceptions.RefUpdateRejectedException;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.ReceiveCommand;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -65,6 +71,21 @@ public class BranchUtilsSetBranchHeadTest extends AbstractParallelGitTest {
     assertEquals(cherryPickedCommit, getHeadCommit(TEST_BRANCH, repo));
   }
 
+  @Test
+  public void rebaseBranch_branchHeadShouldBecomeTheSpecifiedCommit() throws IOException {
+    writeSomethingToCache();
+    AnyObjectId rebasedCommit = commit(branchHead.getParent(0));
+    BranchUtils.rebase(TEST_BRANCH, rebasedCommit, branchHead, repo);
+    assertEquals(rebasedCommit, getHeadCommit(TEST_BRANCH, repo));
+  }
+
+  @Test(expected = RefUpdateLockFailureException.class)
+  public void rebaseBranchWhenBranchHasMoved_shouldThrowRefUpdateLockFailureException() throws IOException {
+    writeSomethingToCache();
+    AnyObjectId rebasedCommit = commit(branchHead.getParent(0));
+    BranchUtils.rebase(TEST_BRANCH, rebasedCommit, branchHead.getParent(0), repo);
+  }
+
   @Test
   public void mergeBranch_branchHeadShouldBecomeTheSpecifiedCommit() throws IOException {
     writeSomethingToCache();
@@ -73,4 +94,41 @@ public class BranchUtilsSetBranchHeadTest extends AbstractParallelGitTest {
     assertEquals(branchHeadCommit, getHeadCommit(TEST_BRANCH, repo));
   }
 
+  @Test
+  public void createNewCommitsOnMultipleBranches_allBranchHeadsShouldBecomeTheNewCommits() throws IOException {
+    writeSomethingToCache();
+    AnyObjectId branchCommit = commit(branchHead);
+    writeSomethingToCache();
+    AnyObjectId masterCommit = commit(getHeadCommit("master", repo));
+    Map<String, AnyObjectId> commits = new HashMap<>();
+    commits.put(TEST_BRANCH, branchCommit);
+    commits.put("master", masterCommit);
+    newCommits(commits, repo);
+    assertEquals(branchCommit, getHeadCommit(TEST_BRANCH, repo));
+    assertEquals(masterCommit, getHeadCommit("master", repo));
+  }
+
+  @Test(expected = RefUpdateRejectedException.class)
+  public void createNewCommitsWhenNewCommitHasDifferentAncestor_shouldThrowRefUpdateRejectedException() throws IOException {
+    writeSomethingToCache();
+    AnyObjectId nonChildCommit = commit();
+    newCommits(Collections.singletonMap(TEST_BRANCH, nonChildCommit), repo);
+  }
+
+  @Test
+  public void tryNewCommitsWhenOneCommitHasDifferentAncestor_theOtherBranchShouldStillBeUpdated() throws IOException {
+    writeSomethingToCache();
+    AnyObjectId nonChildCommit = commit();
+    writeSomethingToCache();
+    AnyObjectId masterCommit = commit(getHeadCommit("master", repo));
+    Map<String, AnyObjectId> commits = new LinkedHashMap<>();
+    commits.put(TEST_BRANCH, nonChildCommit);
+    commits.put("master", masterCommit);
+    Map<String, ReceiveCommand.Result> results = tryNewCommits(commits, repo);
+    assertEquals(ReceiveCommand.Result.REJECTED_NONFASTFORWARD, results.get(TEST_BRANCH));
+    assertEquals(ReceiveCommand.Result.OK, results.get("master"));
+    assertEquals(branchHead, getHeadCommit(TEST_BRANCH, repo));
+    assertEquals(masterCommit, getHeadCommit("master", repo));
+  }
+
 }
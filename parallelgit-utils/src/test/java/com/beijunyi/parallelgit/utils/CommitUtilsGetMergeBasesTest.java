@@ -0,0 +1,62 @@
+package com.beijunyi.parallelgit.utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class CommitUtilsGetMergeBasesTest extends AbstractParallelGitTest {
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+  }
+
+  @Test
+  public void getMergeBasesOfDivergedBranches_shouldReturnTheForkPoint() throws IOException {
+    writeSomethingToCache();
+    RevCommit base = commitToMaster();
+    writeSomethingToCache();
+    RevCommit ours = commitToBranch("ours", base);
+    writeSomethingToCache();
+    RevCommit theirs = commitToBranch("theirs", base);
+
+    assertEquals(singletonList(base.copy()), CommitUtils.getMergeBases(ours, theirs, repo));
+  }
+
+  @Test
+  public void getMergeBasesWhenOneBranchIsAheadOfTheOther_shouldReturnTheOlderHead() throws IOException {
+    writeSomethingToCache();
+    RevCommit first = commitToMaster();
+    writeSomethingToCache();
+    RevCommit second = commitToMaster();
+
+    assertEquals(singletonList(first.copy()), CommitUtils.getMergeBases(first, second, repo));
+    assertEquals(singletonList(first.copy()), CommitUtils.getMergeBases(second, first, repo));
+  }
+
+  @Test
+  public void getMergeBasesOfCrissCrossMerges_shouldReturnBothBases() throws IOException {
+    writeSomethingToCache();
+    RevCommit base = commitToMaster();
+    writeSomethingToCache();
+    RevCommit left = commitToBranch("left", base);
+    writeSomethingToCache();
+    RevCommit right = commitToBranch("right", base);
+    RevCommit ours = CommitUtils.createCommit(someCommitMessage(), left.getTree(), somePersonIdent(), somePersonIdent(), Arrays.asList(left, right), repo);
+    RevCommit theirs = CommitUtils.createCommit(someCommitMessage(), right.getTree(), somePersonIdent(), somePersonIdent(), Arrays.asList(right, left), repo);
+
+    List<ObjectId> bases = CommitUtils.getMergeBases(ours, theirs, repo);
+    assertEquals(new HashSet<>(Arrays.<ObjectId>asList(left, right)), new HashSet<>(bases));
+  }
+
+}
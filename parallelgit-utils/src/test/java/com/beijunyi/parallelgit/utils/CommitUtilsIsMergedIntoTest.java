@@ -1,6 +1,7 @@
 package com.beijunyi.parallelgit.utils;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import com.beijunyi.parallelgit.AbstractParallelGitTest;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -49,4 +50,30 @@ public class CommitUtilsIsMergedIntoTest extends AbstractParallelGitTest {
     assertTrue(CommitUtils.isMergedInto("test_branch", MASTER, repo));
   }
 
+  @Test
+  public void testIfBranchIsMergedIntoMasterThroughMergeCommit_shouldReturnTrue() throws IOException {
+    writeSomethingToCache();
+    RevCommit base = commitToMaster();
+    writeSomethingToCache();
+    RevCommit branchHead = commitToBranch("test_branch", base);
+    writeSomethingToCache();
+    RevCommit masterHead = commitToMaster();
+    RevCommit merge = CommitUtils.createCommit(someCommitMessage(), masterHead.getTree(), somePersonIdent(), somePersonIdent(), Arrays.asList(masterHead, branchHead), repo);
+
+    assertTrue(CommitUtils.isMergedInto(branchHead, merge, repo));
+    assertFalse(CommitUtils.isMergedInto(merge, branchHead, repo));
+  }
+
+  @Test
+  public void testIfAnnotatedTagIsMergedIntoMasterWhenMasterIsAheadOfTag_shouldReturnTrue() throws IOException {
+    writeSomethingToCache();
+    RevCommit tagged = commitToMaster();
+    TagUtils.tagCommit("v1", tagged, "some message", repo);
+    writeSomethingToCache();
+    commitToMaster();
+
+    assertTrue(CommitUtils.isMergedInto("v1", MASTER, repo));
+    assertFalse(CommitUtils.isMergedInto(MASTER, "v1", repo));
+  }
+
 }
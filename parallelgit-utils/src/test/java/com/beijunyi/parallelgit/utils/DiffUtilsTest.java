@@ -0,0 +1,89 @@
+package com.beijunyi.parallelgit.utils;
+
+import java.io.IOException;
+import java.util.*;
+
+import com.beijunyi.parallelgit.AbstractParallelGitTest;
+import com.beijunyi.parallelgit.utils.io.TreeChange;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DiffUtilsTest extends AbstractParallelGitTest {
+
+  private RevTree oldTree;
+
+  @Before
+  public void setUp() throws IOException {
+    initRepository();
+    writeToCache("a.txt", "a");
+    writeToCache("dir/b.txt", "b");
+    writeToCache("dir/sub/c.txt", "c");
+    writeToCache("same/d.txt", "d");
+    oldTree = commit().getTree();
+    clearCache();
+  }
+
+  @Test
+  public void diffIdenticalTrees_shouldReturnNoChange() throws IOException {
+    assertTrue(DiffUtils.getChanges(oldTree, oldTree, repo).isEmpty());
+  }
+
+  @Test
+  public void diffTrees_shouldReturnAddedModifiedAndDeletedFiles() throws IOException {
+    writeToCache("a.txt", "a2");
+    writeToCache("dir/sub/c.txt", "c");
+    writeToCache("same/d.txt", "d");
+    writeToCache("e.txt", "e");
+    RevTree newTree = commit().getTree();
+
+    Map<String, TreeChange> changes = toMap(DiffUtils.getChanges(oldTree, newTree, repo));
+    assertEquals(new HashSet<>(Arrays.asList("/a.txt", "/dir/b.txt", "/e.txt")), changes.keySet());
+    assertTrue(changes.get("/a.txt").isModified());
+    assertTrue(changes.get("/dir/b.txt").isDeleted());
+    assertTrue(changes.get("/e.txt").isAdded());
+  }
+
+  @Test
+  public void diffTreesWhenFileIsReplacedByDirectory_shouldReturnDeletedFileAndAddedChildren() throws IOException {
+    writeToCache("a.txt/child.txt", "child");
+    writeToCache("dir/b.txt", "b");
+    writeToCache("dir/sub/c.txt", "c");
+    writeToCache("same/d.txt", "d");
+    RevTree newTree = commit().getTree();
+
+    Map<String, TreeChange> changes = toMap(DiffUtils.getChanges(oldTree, newTree, repo));
+    assertEquals(2, changes.size());
+    assertTrue(changes.get("/a.txt").isDeleted());
+    assertTrue(changes.get("/a.txt/child.txt").isAdded());
+  }
+
+  @Test
+  public void diffTreeAgainstNull_allFilesShouldBeAdded() throws IOException {
+    assertEquals(4, DiffUtils.getChanges(null, oldTree, repo).size());
+  }
+
+  @Test
+  public void diffTreesInParallel_shouldReturnTheSameChangesAsSequentialDiff() throws IOException {
+    writeToCache("a.txt", "a");
+    writeToCache("dir/sub/c.txt", "c2");
+    writeToCache("dir/sub2/f.txt", "f");
+    writeToCache("new/g.txt", "g");
+    RevTree newTree = commit().getTree();
+
+    Map<String, TreeChange> sequential = toMap(DiffUtils.getChanges(oldTree, newTree, repo));
+    Map<String, TreeChange> parallel = toMap(DiffUtils.getChanges(oldTree, newTree, 4, repo));
+    assertEquals(sequential.keySet(), parallel.keySet());
+    assertEquals(new HashSet<>(Arrays.asList("/dir/b.txt", "/dir/sub/c.txt", "/dir/sub2/f.txt", "/new/g.txt", "/same/d.txt")), parallel.keySet());
+  }
+
+  private static Map<String, TreeChange> toMap(List<TreeChange> changes) {
+    Map<String, TreeChange> ret = new HashMap<>();
+    for(TreeChange change : changes)
+      ret.put(change.getPath(), change);
+    return ret;
+  }
+
+}